@@ -0,0 +1,62 @@
+package com.github.danielflower.mavenplugins.release;
+
+import com.jcraft.jsch.agentproxy.USocketFactory;
+import com.jcraft.jsch.agentproxy.usocket.NCUSocketFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Connects to the running ssh-agent given by SSH_AUTH_SOCK, asks it for its identities and disconnects, which is
+ * what happens for each SSH connection to the Git remote. Start an agent before running this.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class AgentConnectionBenchmark {
+
+    private static final byte SSH2_AGENTC_REQUEST_IDENTITIES = 11;
+
+    @Param({"nc", "unixDomainSocket"})
+    public String connector;
+
+    private USocketFactory factory;
+    private String socketPath;
+
+    @Setup
+    public void findAgent() throws Exception {
+        socketPath = System.getenv("SSH_AUTH_SOCK");
+        if (socketPath == null) {
+            throw new IllegalStateException("SSH_AUTH_SOCK is not set, so there is no ssh-agent to connect to");
+        }
+        factory = "nc".equals(connector) ? new NCUSocketFactory() : new UnixDomainSocketFactory();
+    }
+
+    @Benchmark
+    public int connectAndListIdentities() throws Exception {
+        USocketFactory.Socket socket = factory.open(socketPath);
+        try {
+            socket.write(new byte[]{0, 0, 0, 1, SSH2_AGENTC_REQUEST_IDENTITIES}, 0, 5);
+            byte[] length = new byte[4];
+            socket.readFull(length, 0, 4);
+            int remaining = ((length[0] & 0xff) << 24) | ((length[1] & 0xff) << 16) | ((length[2] & 0xff) << 8) | (length[3] & 0xff);
+            byte[] reply = new byte[remaining];
+            return socket.readFull(reply, 0, remaining);
+        } finally {
+            socket.close();
+        }
+    }
+}
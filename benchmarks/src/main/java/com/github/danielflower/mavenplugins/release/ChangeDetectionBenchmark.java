@@ -0,0 +1,82 @@
+package com.github.danielflower.mavenplugins.release;
+
+import org.apache.maven.project.MavenProject;
+import org.eclipse.jgit.lib.Repository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import scaffolding.GeneratedProject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static scaffolding.GeneratedProject.aGeneratedProject;
+
+/**
+ * Works out which modules have changed since their last release, for every module in the repository.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ChangeDetectionBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int moduleCount;
+
+    @Param({"2", "10"})
+    public int commitsPerModule;
+
+    private GeneratedProject repo;
+    private final List<String> modulePaths = new ArrayList<String>();
+    private final List<List<String>> childModules = new ArrayList<List<String>>();
+    private final List<List<AnnotatedTag>> previousTags = new ArrayList<List<AnnotatedTag>>();
+
+    @Setup
+    public void createRepo() throws Exception {
+        repo = aGeneratedProject().withModules(moduleCount).withCommitsPerModule(commitsPerModule).withReleasesPerModule(3).build();
+        Repository repository = repo.local.getRepository();
+        ReleaseTagIndex index = ReleaseTagIndex.fromRepository(repository);
+        List<MavenProject> projects = repo.readProjects();
+        for (MavenProject project : projects) {
+            modulePaths.add(project == projects.get(0) ? "." : project.getArtifactId());
+            childModules.add(project.getModel().getModules());
+            previousTags.add(AnnotatedTagFinder.tagsForVersion(repository, index, project.getArtifactId(), "1.0"));
+        }
+    }
+
+    @Benchmark
+    public int treeWalkingDetector() throws Exception {
+        return countChanged(new TreeWalkingDiffDetector(repo.local.getRepository()));
+    }
+
+    @Benchmark
+    public int singlePassDetector() throws Exception {
+        BatchDiffDetector detector = new BatchDiffDetector(repo.local.getRepository(), new TreeWalkingDiffDetector(repo.local.getRepository()));
+        for (int i = 0; i < modulePaths.size(); i++) {
+            detector.register(modulePaths.get(i), childModules.get(i), previousTags.get(i));
+        }
+        return countChanged(detector);
+    }
+
+    private int countChanged(DiffDetector detector) throws Exception {
+        int changed = 0;
+        for (int i = 0; i < modulePaths.size(); i++) {
+            if (previousTags.get(i).isEmpty() || detector.hasChangedSince(modulePaths.get(i), childModules.get(i), previousTags.get(i))) {
+                changed++;
+            }
+        }
+        return changed;
+    }
+}
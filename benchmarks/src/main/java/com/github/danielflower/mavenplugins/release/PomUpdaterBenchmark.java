@@ -0,0 +1,62 @@
+package com.github.danielflower.mavenplugins.release;
+
+import org.apache.maven.project.MavenProject;
+import org.eclipse.jgit.api.ResetCommand;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import scaffolding.GeneratedProject;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static scaffolding.GeneratedProject.aGeneratedProject;
+
+/**
+ * Writes the release versions into the pom of every module. The poms are reverted and read again before each call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class PomUpdaterBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int moduleCount;
+
+    private GeneratedProject repo;
+    private Reactor reactor;
+
+    @Setup
+    public void createRepo() throws Exception {
+        repo = aGeneratedProject().withModules(moduleCount).build();
+    }
+
+    @Setup(Level.Invocation)
+    public void planRelease() throws Exception {
+        repo.local.reset().setMode(ResetCommand.ResetType.HARD).call();
+        List<MavenProject> projects = repo.readProjects();
+        LocalGitRepo gitRepo = new LocalGitRepo(repo.local, null);
+        reactor = Reactor.fromProjects(new QuietLog(), gitRepo, projects.get(0), projects, null, null, NoChangesAction.ReleaseAll, new PlanningOptions());
+    }
+
+    @Benchmark
+    public PomUpdater.UpdateResult updateVersion() {
+        PomUpdater.UpdateResult result = new PomUpdater(new QuietLog(), reactor).updateVersion();
+        if (!result.success()) {
+            throw new IllegalStateException("Could not update the poms: " + result.dependencyErrors, result.unexpectedException);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,30 @@
+package com.github.danielflower.mavenplugins.release;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+
+/**
+ * A log that only shows errors, so that benchmark output is not swamped by release plans.
+ */
+class QuietLog extends SystemStreamLog {
+    @Override
+    public void debug(CharSequence content) {
+    }
+
+    @Override
+    public void info(CharSequence content) {
+    }
+
+    @Override
+    public void warn(CharSequence content) {
+    }
+
+    @Override
+    public boolean isInfoEnabled() {
+        return false;
+    }
+
+    @Override
+    public boolean isWarnEnabled() {
+        return false;
+    }
+}
@@ -0,0 +1,65 @@
+package com.github.danielflower.mavenplugins.release;
+
+import org.apache.maven.project.MavenProject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import scaffolding.GeneratedProject;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static scaffolding.GeneratedProject.aGeneratedProject;
+
+/**
+ * Plans a release of every module, including listing the remote tags and detecting changes. With
+ * <code>dependenciesOnChangedModules</code>, unchanged modules that depend on changed modules are released too.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ReactorBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int moduleCount;
+
+    @Param({"2", "10"})
+    public int commitsPerModule;
+
+    @Param({"10"})
+    public int tagsPerModule;
+
+    @Param({"false", "true"})
+    public boolean dependenciesOnChangedModules;
+
+    private GeneratedProject repo;
+    private List<MavenProject> projects;
+
+    @Setup
+    public void createRepo() throws Exception {
+        repo = aGeneratedProject()
+            .withModules(moduleCount)
+            .withCommitsPerModule(commitsPerModule)
+            .withReleasesPerModule(tagsPerModule)
+            .withDependenciesOnChangedModules(dependenciesOnChangedModules)
+            .build();
+        projects = repo.readProjects();
+    }
+
+    @Benchmark
+    public Reactor fromProjects() throws Exception {
+        LocalGitRepo gitRepo = new LocalGitRepo(repo.local, null);
+        return Reactor.fromProjects(new QuietLog(), gitRepo, projects.get(0), projects, null, null, NoChangesAction.ReleaseAll, new PlanningOptions());
+    }
+}
@@ -0,0 +1,60 @@
+package com.github.danielflower.mavenplugins.release;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import scaffolding.GeneratedProject;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static scaffolding.GeneratedProject.aGeneratedProject;
+
+/**
+ * Finds the previous release tags of one module in repositories with many tags.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class TagLookupBenchmark {
+
+    private static final int MODULES = 10;
+
+    @Param({"1000", "10000", "100000"})
+    public int tagCount;
+
+    private GeneratedProject repo;
+    private ReleaseTagIndex index;
+
+    @Setup
+    public void createRepo() throws Exception {
+        repo = aGeneratedProject().withModules(MODULES).withCommitsPerModule(1).withReleasesPerModule(tagCount / MODULES).build();
+        index = ReleaseTagIndex.fromRepository(repo.local.getRepository());
+    }
+
+    @Benchmark
+    public List<AnnotatedTag> tagsForVersion() throws Exception {
+        return AnnotatedTagFinder.tagsForVersion(repo.local, GeneratedProject.moduleName(MODULES / 2), "1.0");
+    }
+
+    @Benchmark
+    public List<AnnotatedTag> tagsForVersionWithIndex() throws Exception {
+        return AnnotatedTagFinder.tagsForVersion(repo.local.getRepository(), index, GeneratedProject.moduleName(MODULES / 2), "1.0");
+    }
+
+    @Benchmark
+    public ReleaseTagIndex indexAllTags() throws Exception {
+        return ReleaseTagIndex.fromRepository(repo.local.getRepository());
+    }
+}
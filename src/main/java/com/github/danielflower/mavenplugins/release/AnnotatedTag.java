@@ -1,63 +1,88 @@
 package com.github.danielflower.mavenplugins.release;
 
-import com.sun.org.apache.xpath.internal.operations.Bool;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.errors.IncorrectObjectTypeException;
+import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.PersonIdent;
 import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.lib.Repository;
-import org.eclipse.jgit.revwalk.RevTag;
-import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.lib.TagBuilder;
+import org.eclipse.jgit.util.RawParseUtils;
 import org.json.simple.JSONObject;
-import org.json.simple.JSONValue;
 
 import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.UnsupportedCharsetException;
 
 public class AnnotatedTag {
     public static final String VERSION = "version";
     public static final String BUILD_NUMBER = "buildNumber";
     private final String name;
-    private final JSONObject message;
+    private final String version;
+    private final long buildNumber;
+    private final boolean hasBuildNumber;
     private Ref ref;
 
-    private AnnotatedTag(Ref ref, String name, JSONObject message) {
+    private AnnotatedTag(Ref ref, String name, String version, long buildNumber, boolean hasBuildNumber) {
         Guard.notBlank("tag name", name);
-        Guard.notNull("tag message", message);
         this.ref = ref;
         this.name = name;
-        this.message = message;
+        this.version = version;
+        this.buildNumber = buildNumber;
+        this.hasBuildNumber = hasBuildNumber;
     }
 
     public static AnnotatedTag create(String name, String version, long buildNumber, Boolean useBuildNumber) {
-        JSONObject message = new JSONObject();
-        message.put(VERSION, version);
-        if(useBuildNumber){
-            message.put(BUILD_NUMBER, String.valueOf(buildNumber));
-        }
-        return new AnnotatedTag(null, name, message);
+        return new AnnotatedTag(null, name, version, useBuildNumber ? buildNumber : 0L, useBuildNumber);
     }
 
     public static AnnotatedTag fromRef(Repository repository, Ref gitTag, Boolean useBuildNumber) throws IOException, IncorrectObjectTypeException {
-        Guard.notNull("gitTag", gitTag);
-
-        RevWalk walk = new RevWalk(repository);
-        JSONObject message;
+        ObjectReader reader = repository.newObjectReader();
         try {
-            ObjectId tagId = gitTag.getObjectId();
-            RevTag tag = walk.parseTag(tagId);
-            message = (JSONObject) JSONValue.parse(tag.getFullMessage());
+            return fromRef(reader, gitTag, useBuildNumber);
         } finally {
-            walk.dispose();
+            reader.close();
+        }
+    }
+
+    /**
+     * Reads a tag with the given reader, so that many tags can be read with one reader. Only the raw bytes of the
+     * tag object are loaded, and only the version and build number are read from the message.
+     *
+     * @throws IncorrectObjectTypeException If the ref is not an annotated tag
+     */
+    public static AnnotatedTag fromRef(ObjectReader reader, Ref gitTag, boolean useBuildNumber) throws IOException, IncorrectObjectTypeException {
+        Guard.notNull("gitTag", gitTag);
+
+        ObjectId tagId = gitTag.getObjectId();
+        if (gitTag.isPeeled() && gitTag.getPeeledObjectId() == null) {
+            // a packed ref that is already known to point directly at a commit
+            throw new IncorrectObjectTypeException(tagId, Constants.TYPE_TAG);
         }
+        byte[] raw = reader.open(tagId, Constants.OBJ_TAG).getCachedBytes();
+        int messageStart = RawParseUtils.tagMessage(raw, 0);
+        TagMessage message = messageStart < 0 ? null : TagMessage.parse(RawParseUtils.decode(encodingOf(raw), raw, messageStart, raw.length));
+
+        String name = stripRefPrefix(gitTag.getName());
         if (message == null) {
-            message = new JSONObject();
-            message.put(VERSION, "0");
-            if(useBuildNumber){
-                message.put(BUILD_NUMBER, "0");
-            }
+            return new AnnotatedTag(gitTag, name, "0", 0L, useBuildNumber);
+        }
+        long buildNumber = message.buildNumber == null ? 0L : Long.parseLong(message.buildNumber);
+        return new AnnotatedTag(gitTag, name, String.valueOf(message.version), buildNumber, message.buildNumber != null);
+    }
+
+    private static Charset encodingOf(byte[] raw) {
+        try {
+            return RawParseUtils.parseEncoding(raw);
+        } catch (IllegalCharsetNameException e) {
+            return Constants.CHARSET;
+        } catch (UnsupportedCharsetException e) {
+            return Constants.CHARSET;
         }
-        return new AnnotatedTag(gitTag, stripRefPrefix(gitTag.getName()), message);
     }
 
     static String stripRefPrefix(String refName) {
@@ -69,24 +94,41 @@ public class AnnotatedTag {
     }
 
     public String version() {
-        return String.valueOf(message.get(VERSION));
+        return version;
     }
 
     public long buildNumber() {
-        if(message.get(BUILD_NUMBER) != null){
-            return Long.parseLong(String.valueOf(message.get(BUILD_NUMBER)));
-        }
-        else{
-            return 0L;
+        return buildNumber;
+    }
+
+    private String message() {
+        JSONObject message = new JSONObject();
+        message.put(VERSION, version);
+        if (hasBuildNumber) {
+            message.put(BUILD_NUMBER, String.valueOf(buildNumber));
         }
+        return message.toJSONString();
     }
 
     public Ref saveAtHEAD(Git git) throws GitAPIException {
-        String json = message.toJSONString();
+        String json = message();
         ref = git.tag().setName(name()).setAnnotated(true).setMessage(json).call();
         return ref;
     }
 
+    TagBuilder toTagBuilder(ObjectId commitId, PersonIdent tagger) {
+        TagBuilder tagBuilder = new TagBuilder();
+        tagBuilder.setTag(name);
+        tagBuilder.setObjectId(commitId, Constants.OBJ_COMMIT);
+        tagBuilder.setTagger(tagger);
+        tagBuilder.setMessage(message());
+        return tagBuilder;
+    }
+
+    void setRef(Ref ref) {
+        this.ref = ref;
+    }
+
     @Override
     public String toString() {
         return "AnnotatedTag{" +
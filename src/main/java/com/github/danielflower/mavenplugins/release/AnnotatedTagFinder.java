@@ -2,9 +2,10 @@ package com.github.danielflower.mavenplugins.release;
 
 import org.apache.maven.plugin.MojoExecutionException;
 import org.eclipse.jgit.api.Git;
-import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.errors.IncorrectObjectTypeException;
+import org.eclipse.jgit.lib.ObjectReader;
 import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -14,59 +15,64 @@ import java.util.List;
 public class AnnotatedTagFinder {
 
     public static List<AnnotatedTag> tagsForVersion(Git git, String module, String versionWithoutBuildNumber) throws MojoExecutionException {
-        ArrayList<AnnotatedTag> results = new ArrayList<AnnotatedTag>();
-        List<Ref> tags;
-        try {
-            tags = git.tagList().call();
-        } catch (GitAPIException e) {
-            throw new MojoExecutionException("Error while getting a list of tags in the local repo", e);
+        return tagsForVersion(git.getRepository(), indexOf(git), module, versionWithoutBuildNumber);
+    }
+
+    public static List<AnnotatedTag> tagsForVersion(Repository repository, ReleaseTagIndex tagIndex, String module, String versionWithoutBuildNumber) throws MojoExecutionException {
+        return load(repository, tagIndex.tagsForVersion(module, versionWithoutBuildNumber));
+    }
+
+    /**
+     * Reads the annotated tags among the given refs with a single object reader, skipping any lightweight tags.
+     */
+    static List<AnnotatedTag> load(Repository repository, List<Ref> tags) throws MojoExecutionException {
+        ArrayList<AnnotatedTag> results = new ArrayList<AnnotatedTag>(tags.size());
+        if (tags.isEmpty()) {
+            return results;
         }
-        Collections.reverse(tags);
-        String tagWithoutBuildNumber = module + "-" + versionWithoutBuildNumber;
-        for (Ref tag : tags) {
-            if (isPotentiallySameVersionIgnoringBuildNumber(tagWithoutBuildNumber, tag.getName())) {
+        ObjectReader reader = repository.newObjectReader();
+        try {
+            for (Ref tag : tags) {
                 try {
-                    results.add(AnnotatedTag.fromRef(git.getRepository(), tag, false));
+                    results.add(AnnotatedTag.fromRef(reader, tag, false));
                 } catch (IncorrectObjectTypeException ignored) {
                     // not actually a tag, so skip it.
                 } catch (IOException e) {
                     throw new MojoExecutionException("Error while looking up tag " + tag, e);
                 }
             }
+        } finally {
+            reader.close();
         }
         return results;
     }
 
     public static List<AnnotatedTag> tagsForVersionNoBuildNumber(Git git, String module, String versionWithoutBuildNumber) throws MojoExecutionException {
-        ArrayList<AnnotatedTag> results = new ArrayList<>();
-        List<Ref> tags;
-        try {
-            tags = git.tagList().call();
-        } catch (GitAPIException e) {
-            throw new MojoExecutionException("Error while getting a list of tags in the local repo", e);
-        }
+        return tagsForVersionNoBuildNumber(git.getRepository(), indexOf(git), module, versionWithoutBuildNumber);
+    }
 
-        if(tags == null || tags.size() == 0){
-            return  results;
+    public static List<AnnotatedTag> tagsForVersionNoBuildNumber(Repository repository, ReleaseTagIndex tagIndex, String module, String versionWithoutBuildNumber) throws MojoExecutionException {
+        ArrayList<AnnotatedTag> results = new ArrayList<>();
+        final Ref ref = tagIndex.lastTag();
+        if (ref == null) {
+            return results;
         }
 
-        Collections.reverse(tags);
-
-        final Ref ref = tags.get(0);
-
         if(AnnotatedTag.stripRefPrefix(ref.getName()).startsWith(module + "-"))
         {
-            try {
-                results.add(AnnotatedTag.fromRef(git.getRepository(), ref, false));
-            } catch (IncorrectObjectTypeException ignored) {
-                // not actually a tag, so skip it.
-            } catch (IOException e) {
-                throw new MojoExecutionException("Error while looking up tag " + ref, e);
-            }
+            results.addAll(load(repository, Collections.singletonList(ref)));
         }
         return results;
     }
 
+    private static ReleaseTagIndex indexOf(Git git) throws MojoExecutionException {
+        try {
+            return ReleaseTagIndex.fromRepository(git.getRepository());
+        } catch (IOException e) {
+            throw new MojoExecutionException("Error while getting a list of tags in the local repo", e);
+        }
+    }
+
     public static boolean isPotentiallySameVersionIgnoringBuildNumber(String versionWithoutBuildNumber, String refName) {
         return buildNumberOf(versionWithoutBuildNumber, refName) != null;
     }
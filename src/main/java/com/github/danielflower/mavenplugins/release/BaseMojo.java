@@ -9,9 +9,11 @@ import org.apache.maven.settings.Server;
 import org.apache.maven.settings.Settings;
 import org.eclipse.jgit.transport.JschConfigSessionFactory;
 
+import java.io.File;
 import java.util.List;
 
 import static java.lang.String.format;
+import static java.util.Arrays.asList;
 
 /**
  * @author Roland Hauser sourcepond@gmail.com
@@ -67,9 +69,132 @@ public abstract class BaseMojo extends AbstractMojo {
     @Parameter(alias = "noChangesAction", defaultValue="ReleaseAll", property = "noChangesAction")
     protected NoChangesAction noChangesAction;
 
+    /**
+     * If true, the changes in all modules are found with a single walk of the Git history, rather than one walk
+     * per module. This is faster for projects with many modules. In rare cases involving merge commits, a module may
+     * be considered changed when it would not be with the default detection.
+     */
+    @Parameter(alias = "singlePassChangeDetection", defaultValue = "false", property = "singlePassChangeDetection")
+    protected boolean singlePassChangeDetection;
+
+    /**
+     * If true, whether or not each module has changed since its last release is saved to disk, and reused by later
+     * runs for the same commit and release tags.
+     */
+    @Parameter(alias = "changeDetectionCache", defaultValue = "false", property = "changeDetectionCache")
+    protected boolean changeDetectionCache;
+
+    /**
+     * The directory to save the change detection cache in. Defaults to a "releaser" directory inside the ".git" directory.
+     */
+    @Parameter(alias = "changeDetectionCacheDirectory", property = "changeDetectionCacheDirectory")
+    protected File changeDetectionCacheDirectory;
+
+    /**
+     * The number of threads to use when working out which modules have changed since their last release, and in
+     * multi-repository releases when opening and checking the status of the repositories. The default of 1 checks
+     * the modules one after another.
+     */
+    @Parameter(alias = "releaseThreads", defaultValue = "1", property = "releaseThreads")
+    protected int releaseThreads;
+
+    /**
+     * <p>
+     * If true, the latest release of each module is recorded in a commit at <code>refs/releaser/ledger</code>, which
+     * is pushed along with the tags. The previous release of a module is then read from a single file in the ledger
+     * instead of being searched for among all the tags. Modules that are not in the ledger are looked up from the
+     * tags as before.
+     * </p>
+     * <p>
+     * Changes are detected since the latest release in the ledger, rather than since any release of the same
+     * version. Before recording a release, the ledger is fetched from the remote so the new entries are added on top
+     * of it. For the ledger to be used when planning, clones need to fetch it too, for example by adding
+     * <code>+refs/releaser/ledger:refs/releaser/ledger</code> to the fetch refspecs of the remote.
+     * </p>
+     * <p>
+     * The ledger is only used by the <code>release</code> goal, and not by multi-repository releases.
+     * </p>
+     * <p>
+     * Every release must be run with this option, and the ledger must be pushed each time, or its entries become
+     * stale. An entry is ignored and the tags are searched instead if the tag for the module's next build number
+     * already exists, but other missed releases are not noticed.
+     * </p>
+     */
+    @Parameter(alias = "releaseLedger", defaultValue = "false", property = "releaseLedger")
+    protected boolean releaseLedger;
+
+    /**
+     * If true, which is the default, a release fails if there are untracked files that are not ignored. If false,
+     * only the files that Git already tracks are checked for changes, which is much faster when there are large
+     * untracked directories, such as build output that is not in a <code>.gitignore</code> file.
+     */
+    @Parameter(alias = "checkUntrackedFiles", defaultValue = "true", property = "checkUntrackedFiles")
+    protected boolean checkUntrackedFiles;
+
+    /**
+     * <p>
+     * If true, the tags on the remote are fetched into <code>refs/releaser/remote-tags/</code> and read from there,
+     * rather than being listed from the remote on every run. Later fetches only download the tags that are new.
+     * </p>
+     * <p>
+     * The mirror is only fetched if it is older than <code>remoteTagMirrorMaxAgeSeconds</code>. Tags created by
+     * other releases in that time are not seen, so a release may propose a tag that already exists on the remote, in
+     * which case pushing the tag fails.
+     * </p>
+     */
+    @Parameter(alias = "remoteTagMirror", defaultValue = "false", property = "remoteTagMirror")
+    protected boolean remoteTagMirror;
+
+    /**
+     * How old, in seconds, the mirror of the remote tags can be before it is fetched again, when
+     * <code>remoteTagMirror</code> is true. The default of 0 fetches it on every run.
+     */
+    @Parameter(alias = "remoteTagMirrorMaxAgeSeconds", defaultValue = "0", property = "remoteTagMirrorMaxAgeSeconds")
+    protected long remoteTagMirrorMaxAgeSeconds;
+
+    /**
+     * <p>
+     * If true, the remote is not contacted when planning the release. Instead, the remote tags are read from a
+     * snapshot in the ".git" directory that is saved whenever the remote tags are listed online. It can be used with
+     * the <code>next</code> goal to preview a release without network access. The <code>release</code> goal can only
+     * run offline if <code>pushTags</code> is false.
+     * </p>
+     * <p>
+     * This is off by default and is not affected by running Maven with <code>-o</code>, which does not stop Git from
+     * contacting the remote.
+     * </p>
+     * <p>
+     * Tags created on the remote since the snapshot was saved are not known, so the plan may be out of date.
+     * </p>
+     */
+    @Parameter(alias = "offline", defaultValue = "false", property = "offlineSnapshot")
+    protected boolean offline;
+
+    /**
+     * When running offline, a warning is logged if the snapshot of the remote tags is older than this many hours.
+     */
+    @Parameter(alias = "offlineSnapshotWarningHours", defaultValue = "24", property = "offlineSnapshotWarningHours")
+    protected long offlineSnapshotWarningHours;
+
+    /**
+     * <p>
+     * A file to save the release plan to, or to read it from. The <code>next</code> goal saves the versions and tags
+     * it works out to this file. The <code>release</code> goal then releases that plan instead of working it out
+     * again, which is faster and ensures the plan that was previewed is the one released.
+     * </p>
+     * <p>
+     * The release fails if HEAD or any pom has changed since the plan was saved. Options that affect planning, such
+     * as <code>buildNumber</code> and <code>forceRelease</code>, are taken from the <code>next</code> goal.
+     * </p>
+     */
+    @Parameter(alias = "releasePlan", property = "releasePlan")
+    protected File releasePlan;
+
 	@Parameter(property = "disableSshAgent")
 	private boolean disableSshAgent;
 
+	private SshAgentSessionFactory sshSessionFactory;
+
 	@Parameter(defaultValue = "${settings}", readonly = true, required = true)
 	private Settings settings;
 
@@ -139,10 +264,58 @@ public abstract class BaseMojo extends AbstractMojo {
 				}
 			}
 
-			JschConfigSessionFactory.setInstance(new SshAgentSessionFactory(log, knownHosts, privateKey, passphrase));
+			sshSessionFactory = new SshAgentSessionFactory(log, knownHosts, privateKey, passphrase);
+			JschConfigSessionFactory.setInstance(sshSessionFactory);
 		}
 	}
 
+    /**
+     * Makes the repository read the remote tags from the local mirror of them, if that is enabled.
+     */
+    protected final LocalGitRepo configureRemoteTags(LocalGitRepo repo) {
+        if (offline) {
+            repo.useOfflineSnapshot(getLog(), offlineSnapshotWarningHours * 60 * 60 * 1000L);
+        } else {
+            repo.saveRemoteTagSnapshots(getLog());
+            if (remoteTagMirror) {
+                repo.useRemoteTagMirror(remoteTagMirrorMaxAgeSeconds * 1000L);
+            }
+        }
+        return repo;
+    }
+
+    /**
+     * Releasing pushes tags, which cannot be done offline, so this fails before anything is changed.
+     */
+    protected final void errorIfOfflineAndPushing(boolean pushTags) throws ValidationException {
+        if (offline && pushTags) {
+            String summary = "Cannot release offline while pushTags is true";
+            throw new ValidationException(summary, asList(summary,
+                "Releasing offline is only possible with pushTags set to false, as the tags cannot be pushed to the remote.",
+                "Run the release online, or set -Dpush=false to create the tags locally."));
+        }
+    }
+
+	/**
+	 * Disconnects the SSH sessions kept open by {@link #configureJsch(Log)}.
+	 */
+	protected final void closeJsch() {
+		if (sshSessionFactory != null) {
+			sshSessionFactory.closeSessions();
+			sshSessionFactory = null;
+		}
+	}
+
+    protected PlanningOptions planningOptions() {
+        PlanningOptions options = new PlanningOptions();
+        options.setSinglePassChangeDetection(singlePassChangeDetection);
+        options.setChangeDetectionCache(changeDetectionCache);
+        options.setChangeDetectionCacheDirectory(changeDetectionCacheDirectory);
+        options.setReleaseThreads(releaseThreads);
+        options.setReleaseLedger(releaseLedger);
+        return options;
+    }
+
     static void printBigErrorMessageAndThrow(Log log, String terseMessage, List<String> linesToLog) throws MojoExecutionException {
         log.error("");
         log.error("");
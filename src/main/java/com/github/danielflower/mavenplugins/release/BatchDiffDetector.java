@@ -0,0 +1,347 @@
+package com.github.danielflower.mavenplugins.release;
+
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevSort;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.revwalk.filter.RevFilter;
+import org.eclipse.jgit.treewalk.EmptyTreeIterator;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Detects which modules have changed since their last releases with a single walk of the history.
+ * <p>
+ * Each module is registered along with its previous release tags. The first time a verdict is asked for, the
+ * history from HEAD back to the tagged commits is walked once. Each commit is diffed against its parents once, and
+ * the changed paths are mapped to the modules that own them with a trie of the module paths. A commit counts as
+ * a change for a module if it touches the module's files and cannot be reached from any of the module's tags,
+ * which is the same rule as {@link TreeWalkingDiffDetector}.
+ * </p>
+ * <p>
+ * Merge commits only count as changes to paths that differ from every parent. Unlike a filtered {@link RevWalk},
+ * history is not simplified around merges, so a module is occasionally reported as changed when the per-module walk
+ * would not have done so, but never the other way around.
+ * </p>
+ * <p>
+ * Modules that were not registered are handed to the fallback detector.
+ * </p>
+ */
+public class BatchDiffDetector implements DiffDetector {
+
+    private final Repository repo;
+    private final DiffDetector fallback;
+    private final Map<String, RegisteredModule> modulesByPath = new LinkedHashMap<String, RegisteredModule>();
+    private boolean detected = false;
+
+    public BatchDiffDetector(Repository repo, DiffDetector fallback) {
+        this.repo = repo;
+        this.fallback = fallback;
+    }
+
+    /**
+     * Registers a module so that it is included in the single walk. Modules without any previous tags do not
+     * need to be registered as they are always considered changed.
+     */
+    public void register(String modulePath, List<String> childModules, Collection<AnnotatedTag> tags) {
+        if (detected) {
+            throw new IllegalStateException("Modules cannot be registered after changes have been detected");
+        }
+        if (tags.isEmpty()) {
+            return;
+        }
+        modulesByPath.put(modulePath, new RegisteredModule(modulesByPath.size(), modulePath, childModules, tags));
+    }
+
+    @Override
+    public boolean hasChangedSince(String modulePath, List<String> childModules, Collection<AnnotatedTag> tags) throws IOException {
+        RegisteredModule module = modulesByPath.get(modulePath);
+        if (module == null) {
+            return fallback.hasChangedSince(modulePath, childModules, tags);
+        }
+        detectChanges();
+        return module.changed;
+    }
+
+    synchronized void detectChanges() throws IOException {
+        if (detected || modulesByPath.isEmpty()) {
+            detected = true;
+            return;
+        }
+        List<RegisteredModule> modules = new ArrayList<RegisteredModule>(modulesByPath.values());
+        Map<ObjectId, Integer> tagNumbers = numberTheTaggedCommits(modules);
+        PathTrie trie = new PathTrie(modules);
+
+        CommitWalk walk = new CommitWalk(repo);
+        try {
+            walk.setRetainBody(false);
+            walk.sort(RevSort.TOPO);
+            TaggedCommit head = (TaggedCommit) walk.parseCommit(repo.resolve(Constants.HEAD));
+            head.reachableFromHead = true;
+            walk.markStart(head);
+            for (Map.Entry<ObjectId, Integer> entry : tagNumbers.entrySet()) {
+                TaggedCommit taggedCommit = (TaggedCommit) walk.parseCommit(entry.getKey());
+                taggedCommit.reachableFromTags().set(entry.getValue());
+                walk.markStart(taggedCommit);
+            }
+            ObjectId commonAncestor = commonAncestorOf(tagNumbers.keySet());
+            if (commonAncestor != null) {
+                // everything before this commit is reachable from every tag, so nothing there is a change for any module
+                walk.markUninteresting(walk.parseCommit(commonAncestor));
+            }
+
+            int unchangedModules = modules.size();
+            ObjectReader reader = walk.getObjectReader();
+            for (RevCommit revCommit : walk) {
+                TaggedCommit commit = (TaggedCommit) revCommit;
+                BitSet reachableFromTags = commit.reachableFromTags();
+                for (RevCommit parent : commit.getParents()) {
+                    walk.parseHeaders(parent);
+                    TaggedCommit taggedParent = (TaggedCommit) parent;
+                    taggedParent.reachableFromTags().or(reachableFromTags);
+                    taggedParent.reachableFromHead |= commit.reachableFromHead;
+                }
+                if (commit.reachableFromHead && unchangedModules > 0) {
+                    BitSet candidates = modulesThatHaveNotReleased(commit, modules);
+                    if (!candidates.isEmpty()) {
+                        candidates.and(changedModules(commit, trie, reader, modules.size()));
+                        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+                            modules.get(i).changed = true;
+                            unchangedModules--;
+                        }
+                    }
+                }
+                commit.tags = null; // no longer needed once passed on to the parents
+            }
+        } finally {
+            walk.dispose();
+        }
+        detected = true;
+    }
+
+    private static Map<ObjectId, Integer> numberTheTaggedCommits(List<RegisteredModule> modules) {
+        Map<ObjectId, Integer> tagNumbers = new HashMap<ObjectId, Integer>();
+        for (RegisteredModule module : modules) {
+            for (AnnotatedTag tag : module.tags) {
+                ObjectId tagId = tag.ref().getTarget().getObjectId();
+                Integer number = tagNumbers.get(tagId);
+                if (number == null) {
+                    number = tagNumbers.size();
+                    tagNumbers.put(tagId, number);
+                }
+                module.tagNumbers.set(number);
+            }
+        }
+        return tagNumbers;
+    }
+
+    private static BitSet modulesThatHaveNotReleased(TaggedCommit commit, List<RegisteredModule> modules) {
+        BitSet candidates = new BitSet(modules.size());
+        BitSet reachableFromTags = commit.reachableFromTags();
+        for (RegisteredModule module : modules) {
+            if (!module.changed && !module.tagNumbers.intersects(reachableFromTags)) {
+                candidates.set(module.number);
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Returns the modules with files that differ between the commit and all of its parents.
+     */
+    private static BitSet changedModules(RevCommit commit, PathTrie trie, ObjectReader reader, int moduleCount) throws IOException {
+        if (commit.getParentCount() == 0) {
+            return changedModules(null, commit, trie, reader, moduleCount);
+        }
+        BitSet changed = null;
+        for (RevCommit parent : commit.getParents()) {
+            BitSet changedSinceParent = changedModules(parent, commit, trie, reader, moduleCount);
+            if (changed == null) {
+                changed = changedSinceParent;
+            } else {
+                changed.and(changedSinceParent);
+            }
+            if (changed.isEmpty()) {
+                break;
+            }
+        }
+        return changed;
+    }
+
+    private static BitSet changedModules(RevCommit parentOrNull, RevCommit commit, PathTrie trie, ObjectReader reader, int moduleCount) throws IOException {
+        BitSet changed = new BitSet(moduleCount);
+        TreeWalk treeWalk = new TreeWalk(reader);
+        try {
+            if (parentOrNull == null) {
+                treeWalk.addTree(new EmptyTreeIterator());
+            } else {
+                treeWalk.addTree(parentOrNull.getTree());
+            }
+            treeWalk.addTree(commit.getTree());
+            treeWalk.setFilter(TreeFilter.ANY_DIFF);
+            treeWalk.setRecursive(false);
+            while (treeWalk.next()) {
+                String path = treeWalk.getPathString();
+                if (treeWalk.isSubtree() && trie.hasModulesBelow(path)) {
+                    // modules own different parts of this directory, so look at each changed file within it
+                    treeWalk.enterSubtree();
+                } else {
+                    changed.or(trie.ownersOf(path));
+                }
+            }
+        } finally {
+            treeWalk.close();
+        }
+        return changed;
+    }
+
+    private ObjectId commonAncestorOf(Collection<ObjectId> commits) throws IOException {
+        RevWalk walk = new RevWalk(repo);
+        try {
+            ObjectId ancestor = null;
+            for (ObjectId commit : commits) {
+                if (ancestor == null) {
+                    ancestor = commit;
+                    continue;
+                }
+                walk.reset();
+                walk.setRevFilter(RevFilter.MERGE_BASE);
+                walk.markStart(walk.parseCommit(ancestor));
+                walk.markStart(walk.parseCommit(commit));
+                RevCommit mergeBase = walk.next();
+                if (mergeBase == null) {
+                    return null;
+                }
+                ancestor = mergeBase.copy();
+            }
+            return ancestor;
+        } finally {
+            walk.dispose();
+        }
+    }
+
+    private static class RegisteredModule {
+        final int number;
+        final String path;
+        final List<String> childModules;
+        final Collection<AnnotatedTag> tags;
+        final BitSet tagNumbers = new BitSet();
+        boolean changed = false;
+
+        RegisteredModule(int number, String path, List<String> childModules, Collection<AnnotatedTag> tags) {
+            this.number = number;
+            this.path = path;
+            this.childModules = childModules;
+            this.tags = tags;
+        }
+    }
+
+    /**
+     * The module paths, along with the child module paths that each module ignores, arranged by path segment.
+     */
+    private static class PathTrie {
+        private final Node root = new Node();
+
+        PathTrie(List<RegisteredModule> modules) {
+            for (RegisteredModule module : modules) {
+                boolean isRootModule = ".".equals(module.path);
+                nodeFor(isRootModule ? "" : module.path).owners.set(module.number);
+                for (String childModule : module.childModules) {
+                    String path = isRootModule ? childModule : module.path + "/" + childModule;
+                    nodeFor(path).ignoredBy.set(module.number);
+                }
+            }
+        }
+
+        private Node nodeFor(String path) {
+            Node node = root;
+            for (String segment : segmentsOf(path)) {
+                Node child = node.children.get(segment);
+                if (child == null) {
+                    child = new Node();
+                    node.children.put(segment, child);
+                }
+                node = child;
+            }
+            return node;
+        }
+
+        boolean hasModulesBelow(String path) {
+            Node node = root;
+            for (String segment : segmentsOf(path)) {
+                node = node.children.get(segment);
+                if (node == null) {
+                    return false;
+                }
+            }
+            return !node.children.isEmpty();
+        }
+
+        BitSet ownersOf(String path) {
+            BitSet owners = (BitSet) root.owners.clone();
+            Node node = root;
+            for (String segment : segmentsOf(path)) {
+                node = node.children.get(segment);
+                if (node == null) {
+                    break;
+                }
+                owners.andNot(node.ignoredBy);
+                owners.or(node.owners);
+            }
+            return owners;
+        }
+
+        private static String[] segmentsOf(String path) {
+            return path.isEmpty() ? new String[0] : path.split("/");
+        }
+
+        private static class Node {
+            final Map<String, Node> children = new HashMap<String, Node>();
+            final BitSet owners = new BitSet();
+            final BitSet ignoredBy = new BitSet();
+        }
+    }
+
+    private static class CommitWalk extends RevWalk {
+        CommitWalk(Repository repo) {
+            super(repo);
+        }
+
+        @Override
+        protected RevCommit createCommit(AnyObjectId id) {
+            return new TaggedCommit(id);
+        }
+    }
+
+    /**
+     * A commit that knows which tagged commits it can be reached from, and whether it can be reached from HEAD.
+     */
+    private static class TaggedCommit extends RevCommit {
+        BitSet tags;
+        boolean reachableFromHead = false;
+
+        TaggedCommit(AnyObjectId id) {
+            super(id);
+        }
+
+        BitSet reachableFromTags() {
+            if (tags == null) {
+                tags = new BitSet();
+            }
+            return tags;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.github.danielflower.mavenplugins.release;
+
+import org.apache.maven.project.MavenProject;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Works out the value of Maven's <code>-T</code> option for the release build. Any value other than {@link #AUTO}
+ * is passed to Maven as it is, so counts such as <code>4</code> and per-core values such as <code>1C</code> can be
+ * used.
+ * <p>
+ * With {@link #AUTO} the number of threads is the largest number of modules in the build that could be built at
+ * the same time, given the dependencies between them, up to the number of processors.
+ * </p>
+ */
+class BuildThreads {
+
+    static final String AUTO = "auto";
+
+    private BuildThreads() {
+    }
+
+    /**
+     * @param threads The configured value, which may be null
+     * @param modulesInBuildOrder All the modules in the reactor
+     * @param modulePathsToBuild The relative paths of the modules selected to be built
+     * @param alsoMake True if the modules that the selected modules depend on are built too
+     * @return The value to pass to <code>-T</code>, or null to build on a single thread
+     */
+    static String resolve(String threads, List<ReleasableModule> modulesInBuildOrder, List<String> modulePathsToBuild, boolean alsoMake) {
+        if (threads == null || threads.trim().isEmpty()) {
+            return null;
+        }
+        if (!AUTO.equalsIgnoreCase(threads.trim())) {
+            return threads.trim();
+        }
+        int width = Math.min(widthOfBuild(modulesInBuildOrder, modulePathsToBuild, alsoMake), Runtime.getRuntime().availableProcessors());
+        return width > 1 ? String.valueOf(width) : null;
+    }
+
+    static int widthOfBuild(List<ReleasableModule> modulesInBuildOrder, List<String> modulePathsToBuild, boolean alsoMake) {
+        List<MavenProject> projects = new ArrayList<MavenProject>();
+        BitSet built = new BitSet();
+        for (int i = 0; i < modulesInBuildOrder.size(); i++) {
+            ReleasableModule module = modulesInBuildOrder.get(i);
+            projects.add(module.getProject());
+            if (modulePathsToBuild.contains(module.getRelativePathToModule())) {
+                built.set(i);
+            }
+        }
+        ModuleGraph graph = ModuleGraph.fromProjects(projects);
+        if (alsoMake) {
+            // upstream projects always come first, so walking backwards marks everything the selection needs
+            for (int i = projects.size() - 1; i >= 0; i--) {
+                if (built.get(i)) {
+                    for (int upstream : graph.upstreamOf(i)) {
+                        built.set(upstream);
+                    }
+                }
+            }
+        }
+        return graph.widthOf(built);
+    }
+}
@@ -0,0 +1,49 @@
+package com.github.danielflower.mavenplugins.release;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Looks up verdicts in a {@link ChangeDetectionCache} before asking another detector, and saves the verdicts
+ * that the other detector gives. This is safe to use from many threads as long as the other detector is.
+ */
+public class CachingDiffDetector implements DiffDetector {
+
+    private final Repository repo;
+    private final DiffDetector detector;
+    private final ChangeDetectionCache cache;
+    private ObjectId head;
+
+    public CachingDiffDetector(Repository repo, DiffDetector detector, ChangeDetectionCache cache) {
+        this.repo = repo;
+        this.detector = detector;
+        this.cache = cache;
+    }
+
+    @Override
+    public boolean hasChangedSince(String modulePath, List<String> childModules, Collection<AnnotatedTag> tags) throws IOException {
+        List<ObjectId> tagIds = new ArrayList<ObjectId>();
+        for (AnnotatedTag tag : tags) {
+            tagIds.add(tag.ref().getTarget().getObjectId());
+        }
+        String key = ChangeDetectionCache.keyFor(detector.getClass().getSimpleName(), head(), tagIds, modulePath, childModules);
+        Boolean changed = cache.get(key);
+        if (changed == null) {
+            changed = detector.hasChangedSince(modulePath, childModules, tags);
+            cache.put(key, changed);
+        }
+        return changed;
+    }
+
+    private synchronized ObjectId head() throws IOException {
+        if (head == null) {
+            head = repo.resolve("HEAD^{commit}");
+        }
+        return head;
+    }
+}
@@ -0,0 +1,200 @@
+package com.github.danielflower.mavenplugins.release;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Change detection verdicts that are saved to disk so that they can be reused by later runs of the plugin.
+ * <p>
+ * Each verdict is keyed by the HEAD commit, the IDs of the module's previous release tags, the module path and
+ * the module's child modules. As Git object IDs are hashes of the whole history behind them, a verdict never goes out of
+ * date; when history is rewritten the commits get new IDs and the old verdicts are simply never used again. The only
+ * things that can change what history lies behind a commit are shallow clones, grafts and replace refs, so a
+ * fingerprint of those is saved with the verdicts and the whole cache is discarded if it changes.
+ * </p>
+ * <p>
+ * The cache holds a limited number of verdicts, and the least recently used ones are dropped when it is full.
+ * </p>
+ */
+public class ChangeDetectionCache {
+
+    public static final int DEFAULT_MAX_ENTRIES = 10000;
+    static final String FILE_NAME = "change-detection-cache";
+    private static final String FORMAT = "releaser change detection cache v1";
+
+    private final File file;
+    private final String historyFingerprint;
+    private final Map<String, Boolean> verdicts;
+    private boolean modified = false;
+
+    private ChangeDetectionCache(File file, String historyFingerprint, final int maxEntries) {
+        this.file = file;
+        this.historyFingerprint = historyFingerprint;
+        this.verdicts = new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Loads the cache from the given directory, or from a "releaser" directory inside the Git directory if the
+     * directory is null. An empty cache is returned if there is no cache file yet, or if it cannot be used.
+     */
+    public static ChangeDetectionCache load(Repository repo, File directoryOrNull, int maxEntries) throws IOException {
+        File directory = directoryOrNull == null ? new File(repo.getDirectory(), "releaser") : directoryOrNull;
+        ChangeDetectionCache cache = new ChangeDetectionCache(new File(directory, FILE_NAME), historyFingerprint(repo), maxEntries);
+        cache.read();
+        return cache;
+    }
+
+    private void read() throws IOException {
+        if (!file.isFile()) {
+            return;
+        }
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8));
+        try {
+            if (!FORMAT.equals(reader.readLine()) || !("history " + historyFingerprint).equals(reader.readLine())) {
+                modified = true;
+                return;
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split(" ");
+                if (parts.length == 2) {
+                    verdicts.put(parts[0], "changed".equals(parts[1]));
+                }
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * @return The saved verdict for the key, or null if there is none.
+     */
+    public synchronized Boolean get(String key) {
+        Boolean changed = verdicts.get(key);
+        if (changed != null) {
+            modified = true; // the order of use has changed
+        }
+        return changed;
+    }
+
+    public synchronized void put(String key, boolean changed) {
+        verdicts.put(key, changed);
+        modified = true;
+    }
+
+    public synchronized int size() {
+        return verdicts.size();
+    }
+
+    /**
+     * Writes the cache to disk if it has been used. The file is replaced in one step so that concurrent builds
+     * never see a partly written file.
+     */
+    public synchronized void save() throws IOException {
+        if (!modified) {
+            return;
+        }
+        File directory = file.getParentFile();
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create " + FileUtils.pathOf(directory));
+        }
+        File temp = File.createTempFile(FILE_NAME, ".tmp", directory);
+        try {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(temp), StandardCharsets.UTF_8));
+            try {
+                writer.write(FORMAT + "\n");
+                writer.write("history " + historyFingerprint + "\n");
+                for (Map.Entry<String, Boolean> entry : verdicts.entrySet()) {
+                    writer.write(entry.getKey() + (entry.getValue() ? " changed\n" : " unchanged\n"));
+                }
+            } finally {
+                writer.close();
+            }
+            try {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            modified = false;
+        } finally {
+            if (temp.exists()) {
+                temp.delete();
+            }
+        }
+    }
+
+    /**
+     * Creates the key for a verdict. The detector name is included as different detectors can give different
+     * answers in rare cases.
+     */
+    public static String keyFor(String detectorName, ObjectId head, Collection<ObjectId> tagIds, String modulePath, List<String> childModules) {
+        List<String> sortedTagIds = new ArrayList<String>();
+        for (ObjectId tagId : tagIds) {
+            sortedTagIds.add(tagId.name());
+        }
+        Collections.sort(sortedTagIds);
+        List<String> sortedChildModules = new ArrayList<String>(childModules);
+        Collections.sort(sortedChildModules);
+
+        MessageDigest digest = Constants.newMessageDigest();
+        update(digest, detectorName);
+        update(digest, head.name());
+        update(digest, String.valueOf(sortedTagIds));
+        update(digest, modulePath);
+        update(digest, String.valueOf(sortedChildModules));
+        return ObjectId.fromRaw(digest.digest()).name();
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    /**
+     * A hash of the shallow commits, grafts and replace refs of the repository, which are the only things that can
+     * change the history behind a commit ID.
+     */
+    static String historyFingerprint(Repository repo) throws IOException {
+        MessageDigest digest = Constants.newMessageDigest();
+        for (String fileName : new String[]{"shallow", "info/grafts"}) {
+            File historyFile = new File(repo.getDirectory(), fileName);
+            update(digest, fileName);
+            if (historyFile.isFile()) {
+                digest.update(Files.readAllBytes(historyFile.toPath()));
+            }
+        }
+        for (Ref ref : repo.getRefDatabase().getRefs(Constants.R_REFS + "replace/").values()) {
+            update(digest, ref.getName());
+            update(digest, ref.getObjectId().name());
+        }
+        return ObjectId.fromRaw(digest.digest()).name();
+    }
+}
@@ -2,30 +2,38 @@ package com.github.danielflower.mavenplugins.release;
 
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.api.errors.JGitInternalException;
+import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.Ref;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 public class GitHelper {
     public static boolean hasLocalTag(Git repo, String tagToCheck) throws GitAPIException {
-        return tag(repo, new EqualsMatcher(tagToCheck)) != null;
-    }
-
-    public static Ref refStartingWith(Git repo, final String tagPrefix) throws GitAPIException {
-        return tag(repo, new Matcher() {
-            @Override
-            public boolean matches(String tagName) {
-                return tagName.startsWith(tagPrefix);
-            }
-        });
+        try {
+            return repo.getRepository().getRefDatabase().exactRef(Constants.R_TAGS + tagToCheck) != null;
+        } catch (IOException e) {
+            throw new JGitInternalException("Error while looking up the tag " + tagToCheck, e);
+        }
     }
 
-    private static Ref tag(Git repo, Matcher matcher) throws GitAPIException {
-        for (Ref ref : repo.tagList().call()) {
-            String currentTag = ref.getName().replace("refs/tags/", "");
-            if (matcher.matches(currentTag)) {
-                return ref;
+    /**
+     * @return A tag whose name starts with the given prefix, found with a single scan of the tag refs, or null if there
+     * is no such tag.
+     */
+    public static Ref refStartingWith(Git repo, String tagPrefix) throws GitAPIException {
+        Map<String, Ref> tags;
+        try {
+            tags = repo.getRepository().getRefDatabase().getRefs(Constants.R_TAGS);
+        } catch (IOException e) {
+            throw new JGitInternalException("Error while listing the tags", e);
+        }
+        for (Map.Entry<String, Ref> tag : tags.entrySet()) {
+            if (tag.getKey().startsWith(tagPrefix)) {
+                return tag.getValue();
             }
         }
         return null;
@@ -44,21 +52,4 @@ public class GitHelper {
         remote  = remote.replace("file://localhost/", "file:///");
         return remote;
     }
-
-    private interface Matcher {
-        public boolean matches(String tagName);
-    }
-
-    private static class EqualsMatcher implements Matcher {
-        private final String tagToCheck;
-
-        public EqualsMatcher(String tagToCheck) {
-            this.tagToCheck = tagToCheck;
-        }
-
-        @Override
-        public boolean matches(String tagName) {
-            return tagToCheck.equals(tagName);
-        }
-    }
 }
@@ -7,22 +7,67 @@ import org.eclipse.jgit.api.LsRemoteCommand;
 import org.eclipse.jgit.api.PushCommand;
 import org.eclipse.jgit.api.Status;
 import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.api.errors.JGitInternalException;
+import org.eclipse.jgit.api.errors.RefAlreadyExistsException;
+import org.eclipse.jgit.api.errors.TransportException;
 import org.eclipse.jgit.errors.RepositoryNotFoundException;
+import org.eclipse.jgit.internal.JGitText;
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheEntry;
+import org.eclipse.jgit.dircache.DirCacheIterator;
+import org.eclipse.jgit.lib.BatchRefUpdate;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.NullProgressMonitor;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectIdRef;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.PersonIdent;
 import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.RefUpdate;
 import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.AbstractTreeIterator;
+import org.eclipse.jgit.treewalk.EmptyTreeIterator;
+import org.eclipse.jgit.treewalk.FileTreeIterator;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.WorkingTreeIterator;
+import org.eclipse.jgit.transport.FetchConnection;
+import org.eclipse.jgit.transport.PushResult;
+import org.eclipse.jgit.transport.ReceiveCommand;
+import org.eclipse.jgit.transport.RefSpec;
+import org.eclipse.jgit.transport.RemoteRefUpdate;
+import org.eclipse.jgit.transport.TagOpt;
+import org.eclipse.jgit.transport.Transport;
 
 import java.io.File;
 import java.io.IOException;
+import java.net.URISyntaxException;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 import static com.github.danielflower.mavenplugins.release.FileUtils.pathOf;
 
 public class LocalGitRepo {
 
+    /**
+     * The refs that the remote tags are mirrored to, under a directory for each remote.
+     */
+    public static final String REMOTE_TAG_MIRROR_PREFIX = "refs/releaser/remote-tags/";
+
     public final Git git;
     private final String remoteUrl;
+    private long remoteTagMirrorMaxAgeMillis = -1;
+    private Log snapshotLog;
+    private boolean offline;
+    private long offlineSnapshotWarningAgeMillis;
     private boolean hasReverted = false; // A premature optimisation? In the normal case, file reverting occurs twice, which this bool prevents
     private Collection<Ref> remoteTags;
+    private ReleaseTagIndex remoteTagIndex;
+    private ReleaseTagIndex localTags;
 
     LocalGitRepo(Git git, String remoteUrl) {
         this.git = git;
@@ -30,20 +75,34 @@ public class LocalGitRepo {
     }
 
     public void errorIfNotClean() throws ValidationException {
-        Status status = currentStatus();
-        boolean isClean = status.isClean();
-        if (!isClean) {
+        errorIfNotClean(true);
+    }
+
+    /**
+     * @param checkUntrackedFiles If false, only the files in the index are checked, which avoids scanning every
+     *                            untracked directory such as unignored build output.
+     */
+    public void errorIfNotClean(boolean checkUntrackedFiles) throws ValidationException {
+        Set<String> uncommittedChanges;
+        Set<String> untracked;
+        if (checkUntrackedFiles) {
+            Status status = currentStatus();
+            uncommittedChanges = status.getUncommittedChanges();
+            untracked = status.getUntracked();
+        } else {
+            uncommittedChanges = changedTrackedFiles();
+            untracked = Collections.emptySet();
+        }
+        if (!uncommittedChanges.isEmpty() || !untracked.isEmpty()) {
             String summary = "Cannot release with uncommitted changes. Please check the following files:";
             List<String> message = new ArrayList<String>();
             message.add(summary);
-            Set<String> uncommittedChanges = status.getUncommittedChanges();
             if (uncommittedChanges.size() > 0) {
                 message.add("Uncommitted:");
                 for (String path : uncommittedChanges) {
                     message.add(" * " + path);
                 }
             }
-            Set<String> untracked = status.getUntracked();
             if (untracked.size() > 0) {
                 message.add("Untracked:");
                 for (String path : untracked) {
@@ -55,6 +114,69 @@ public class LocalGitRepo {
         }
     }
 
+    /**
+     * Finds the files that are staged, or are in the index and differ in the working tree, by walking HEAD, the
+     * index and the working tree together. Directories that are in neither HEAD nor the index are not entered.
+     * Working tree files are first compared to the index by their size and modification time, and their content
+     * is only read if those do not match or the index entry is racily clean.
+     */
+    private Set<String> changedTrackedFiles() throws ValidationException {
+        Repository repository = git.getRepository();
+        Set<String> changed = new TreeSet<String>();
+        try {
+            DirCache index = repository.readDirCache();
+            ObjectId head = repository.resolve(Constants.HEAD + "^{tree}");
+            TreeWalk walk = new TreeWalk(repository);
+            try {
+                if (head == null) {
+                    walk.addTree(new EmptyTreeIterator());
+                } else {
+                    walk.addTree(head);
+                }
+                walk.addTree(new DirCacheIterator(index));
+                walk.addTree(new FileTreeIterator(repository));
+                walk.setRecursive(false);
+                while (walk.next()) {
+                    AbstractTreeIterator headEntry = walk.getTree(0, AbstractTreeIterator.class);
+                    DirCacheIterator indexEntry = walk.getTree(1, DirCacheIterator.class);
+                    WorkingTreeIterator workingEntry = walk.getTree(2, WorkingTreeIterator.class);
+                    if (headEntry == null && indexEntry == null) {
+                        continue; // untracked, and not entered if it is a directory
+                    }
+                    if (walk.isSubtree()) {
+                        walk.enterSubtree();
+                        continue;
+                    }
+                    if (isChanged(walk, headEntry, indexEntry, workingEntry)) {
+                        changed.add(walk.getPathString());
+                    }
+                }
+            } finally {
+                walk.close();
+            }
+        } catch (IOException e) {
+            throw new ValidationException("Error while checking if the Git repo is clean", e);
+        }
+        return changed;
+    }
+
+    private static boolean isChanged(TreeWalk walk, AbstractTreeIterator headEntry, DirCacheIterator indexEntry, WorkingTreeIterator workingEntry) throws IOException {
+        if (headEntry == null || indexEntry == null || workingEntry == null) {
+            return true; // added, removed from the index, or deleted from the working tree
+        }
+        DirCacheEntry entry = indexEntry.getDirCacheEntry();
+        if (entry.getStage() != DirCacheEntry.STAGE_0) {
+            return true; // unmerged
+        }
+        if (!walk.idEqual(0, 1) || walk.getRawMode(0) != walk.getRawMode(1)) {
+            return true; // staged
+        }
+        if (FileMode.GITLINK.equals(walk.getRawMode(1))) {
+            return false; // submodules are checked in their own repositories
+        }
+        return workingEntry.isModified(entry, true, walk.getObjectReader());
+    }
+
     private Status currentStatus() throws ValidationException {
         Status status;
         try {
@@ -112,7 +234,56 @@ public class LocalGitRepo {
     }
 
     public boolean hasLocalTag(String tagName) throws GitAPIException {
-        return GitHelper.hasLocalTag(git, tagName);
+        return !getLocalTags(Collections.singletonList(tagName)).isEmpty();
+    }
+
+    public List<String> localTagsFrom(List<AnnotatedTag> annotatedTags) {
+        List<String> tagNames = new ArrayList<String>();
+        for (AnnotatedTag annotatedTag : annotatedTags) {
+            tagNames.add(annotatedTag.name());
+        }
+        return getLocalTags(tagNames);
+    }
+
+    /**
+     * Finds which of the given tags exist in the local repository. Each tag is looked up by its exact ref name, so the
+     * cost depends on the number of tags asked about rather than the number of tags in the repository.
+     *
+     * @return The tag names that exist, in the order they were given
+     */
+    public List<String> getLocalTags(List<String> tagNamesToSearchFor) {
+        String[] refNames = new String[tagNamesToSearchFor.size()];
+        for (int i = 0; i < refNames.length; i++) {
+            refNames[i] = Constants.R_TAGS + tagNamesToSearchFor.get(i);
+        }
+        Map<String, Ref> existingRefs;
+        try {
+            existingRefs = git.getRepository().getRefDatabase().exactRef(refNames);
+        } catch (IOException e) {
+            throw new JGitInternalException("Error while looking up tags in the local repo", e);
+        }
+        List<String> results = new ArrayList<String>();
+        for (String tagName : tagNamesToSearchFor) {
+            if (existingRefs.containsKey(Constants.R_TAGS + tagName)) {
+                results.add(tagName);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * @return An index of the tags in the local repository. The tags are read once and the index is kept up to date
+     * as this class tags the repository.
+     */
+    public ReleaseTagIndex localTags() {
+        if (localTags == null) {
+            try {
+                localTags = ReleaseTagIndex.fromRepository(git.getRepository());
+            } catch (IOException e) {
+                throw new JGitInternalException("Error while getting a list of tags in the local repo", e);
+            }
+        }
+        return localTags;
     }
 
     public void tagRepoAndPush(AnnotatedTag tag) throws GitAPIException {
@@ -130,17 +301,195 @@ public class LocalGitRepo {
 
     public Ref tagRepo(AnnotatedTag tag) throws GitAPIException {
         Ref tagRef = tag.saveAtHEAD(git);
+        if (localTags != null) {
+            localTags.add(tagRef);
+        }
         return tagRef;
     }
 
+    /**
+     * Creates all the tags at HEAD with a single ref update and then pushes them to the remote in a single atomic
+     * push, so that either all of the tags are pushed or none of them are. If the push fails, the tags are removed
+     * from the local repository again.
+     *
+     * @throws ValidationException If the remote does not support atomic pushes, in which case nothing is pushed
+     */
+    public void tagRepoAndPushAtomically(List<AnnotatedTag> tags) throws GitAPIException, ValidationException {
+        List<Ref> tagRefs = tagRepo(tags);
+        try {
+            pushTags(tagRefs);
+        } catch (TransportException e) {
+            deleteTags(tagRefs);
+            if (e.getMessage() != null && e.getMessage().contains(JGitText.get().atomicPushNotSupported)) {
+                String summary = "The remote repository does not support atomic pushes";
+                throw new ValidationException(summary, Arrays.asList(summary,
+                    "Set atomicPush to false to push the tags one at a time, or use a Git server that supports atomic pushes."));
+            }
+            throw e;
+        } catch (GitAPIException e) {
+            deleteTags(tagRefs);
+            throw e;
+        }
+    }
+
+    private void pushTags(List<Ref> tagRefs) throws GitAPIException {
+        PushCommand pushCommand = git.push().setAtomic(true);
+        for (Ref tagRef : tagRefs) {
+            pushCommand.add(tagRef);
+        }
+        if (remoteUrl != null) {
+            pushCommand.setRemote(remoteUrl);
+        }
+        throwIfRejected(pushCommand.call(), "tags");
+    }
+
+    /**
+     * Sets the local {@link ReleaseLedger} to the one on the remote, so that new releases are recorded on top of the
+     * remote ledger and pushing it is a fast-forward. Entries in the local ledger that were never pushed are dropped,
+     * as they are only used to avoid searching the tags. Nothing is changed if the remote has no ledger.
+     */
+    public void fetchLedger() throws GitAPIException {
+        Repository repository = git.getRepository();
+        String remote = remoteUrl == null ? Constants.DEFAULT_REMOTE_NAME : remoteUrl;
+        try {
+            Transport transport = Transport.open(repository, remote);
+            try {
+                FetchConnection connection = transport.openFetch();
+                Ref remoteLedger;
+                try {
+                    remoteLedger = connection.getRef(ReleaseLedger.REF);
+                    if (remoteLedger != null && !repository.hasObject(remoteLedger.getObjectId())) {
+                        connection.fetch(NullProgressMonitor.INSTANCE, Collections.singleton(remoteLedger), Collections.<ObjectId>emptySet());
+                    }
+                } finally {
+                    connection.close();
+                }
+                if (remoteLedger != null) {
+                    RefUpdate update = repository.updateRef(ReleaseLedger.REF);
+                    update.setNewObjectId(remoteLedger.getObjectId());
+                    update.setForceUpdate(true);
+                    update.setRefLogMessage("release ledger fetched by the release plugin", false);
+                    RefUpdate.Result result = update.update();
+                    if (result == RefUpdate.Result.LOCK_FAILURE || result == RefUpdate.Result.IO_FAILURE || result == RefUpdate.Result.REJECTED) {
+                        throw new JGitInternalException("Could not update " + ReleaseLedger.REF + ": " + result);
+                    }
+                }
+            } finally {
+                transport.close();
+            }
+        } catch (URISyntaxException e) {
+            throw new TransportException("Invalid remote " + remote, e);
+        } catch (IOException e) {
+            throw new TransportException("Could not fetch the release ledger from " + remote, e);
+        }
+    }
+
+    /**
+     * Pushes the {@link ReleaseLedger} to the remote. The push is not forced, so it is rejected if the remote ledger
+     * has been updated by another release since it was fetched.
+     */
+    public void pushLedger() throws GitAPIException {
+        PushCommand pushCommand = git.push().setRefSpecs(new RefSpec(ReleaseLedger.REF + ":" + ReleaseLedger.REF));
+        if (remoteUrl != null) {
+            pushCommand.setRemote(remoteUrl);
+        }
+        throwIfRejected(pushCommand.call(), "release ledger");
+    }
+
+    private static void throwIfRejected(Iterable<PushResult> pushResults, String whatWasPushed) throws TransportException {
+        List<String> rejected = new ArrayList<String>();
+        for (PushResult pushResult : pushResults) {
+            for (RemoteRefUpdate update : pushResult.getRemoteUpdates()) {
+                if (update.getStatus() != RemoteRefUpdate.Status.OK && update.getStatus() != RemoteRefUpdate.Status.UP_TO_DATE) {
+                    rejected.add(update.getRemoteName() + " (" + update.getStatus() + (update.getMessage() == null ? "" : ": " + update.getMessage()) + ")");
+                }
+            }
+        }
+        if (!rejected.isEmpty()) {
+            throw new TransportException("The remote repository did not accept the " + whatWasPushed + " " + rejected);
+        }
+    }
+
+    /**
+     * Creates all the tags at HEAD with a single ref update. If any of the tags cannot be created then none are.
+     */
+    public List<Ref> tagRepo(List<AnnotatedTag> tags) throws GitAPIException {
+        Repository repository = git.getRepository();
+        List<ReceiveCommand> commands = new ArrayList<ReceiveCommand>();
+        try {
+            ObjectId head = repository.resolve(Constants.HEAD);
+            PersonIdent tagger = new PersonIdent(repository);
+            ObjectInserter inserter = repository.newObjectInserter();
+            try {
+                for (AnnotatedTag tag : tags) {
+                    ObjectId tagId = inserter.insert(tag.toTagBuilder(head, tagger));
+                    commands.add(new ReceiveCommand(ObjectId.zeroId(), tagId, Constants.R_TAGS + tag.name(), ReceiveCommand.Type.CREATE));
+                }
+                inserter.flush();
+            } finally {
+                inserter.close();
+            }
+
+            BatchRefUpdate batchUpdate = repository.getRefDatabase().newBatchUpdate();
+            batchUpdate.setRefLogIdent(tagger);
+            batchUpdate.setRefLogMessage("tagged by the release plugin", false);
+            batchUpdate.addCommand(commands);
+            RevWalk walk = new RevWalk(repository);
+            try {
+                batchUpdate.execute(walk, NullProgressMonitor.INSTANCE);
+            } finally {
+                walk.dispose();
+            }
+        } catch (IOException e) {
+            throw new JGitInternalException("Error while tagging the repository", e);
+        }
+
+        List<Ref> created = new ArrayList<Ref>();
+        List<String> failed = new ArrayList<String>();
+        for (ReceiveCommand command : commands) {
+            if (command.getResult() == ReceiveCommand.Result.OK) {
+                created.add(new ObjectIdRef.Unpeeled(Ref.Storage.LOOSE, command.getRefName(), command.getNewId()));
+            } else {
+                failed.add(command.getRefName() + " (" + command.getResult() + ")");
+            }
+        }
+        if (!failed.isEmpty()) {
+            deleteTags(created);
+            throw new RefAlreadyExistsException("Could not create the tags " + failed);
+        }
+        for (int i = 0; i < tags.size(); i++) {
+            tags.get(i).setRef(created.get(i));
+            if (localTags != null) {
+                localTags.add(created.get(i));
+            }
+        }
+        return created;
+    }
+
+    private void deleteTags(List<Ref> tagRefs) {
+        List<String> tagNames = new ArrayList<String>();
+        for (Ref tagRef : tagRefs) {
+            tagNames.add(tagRef.getName());
+        }
+        try {
+            git.tagDelete().setTags(tagNames.toArray(new String[tagNames.size()])).call();
+        } catch (GitAPIException e) {
+            throw new JGitInternalException("Could not remove the tags " + tagNames + " - please delete them manually", e);
+        }
+        localTags = null;
+    }
+
     /**
      * Uses the current working dir to open the Git repository.
      * @param remoteUrl The value in pom.scm.connection or null if none specified, in which case the default remote is used.
      * @throws ValidationException if anything goes wrong
      */
     public static LocalGitRepo fromCurrentDir(String remoteUrl, String moduleName) throws ValidationException {
+        return fromDir(remoteUrl, new File("../" + moduleName));
+    }
+
+    static LocalGitRepo fromDir(String remoteUrl, File gitDir) throws ValidationException {
         Git git;
-        File gitDir = new File("../" + moduleName);
         try {
             git = Git.open(gitDir);
         } catch (RepositoryNotFoundException rnfe) {
@@ -165,6 +514,71 @@ public class LocalGitRepo {
         return new LocalGitRepo(git, remoteUrl);
     }
 
+    /**
+     * Opens each of the given repositories and checks that it has no uncommitted changes, using up to the given
+     * number of threads. All the repositories are checked even if some fail, and the problems with every failing
+     * repository are reported together.
+     *
+     * @param gitDirs The root directories of the repositories
+     * @param remoteUrls The remote URL for each repository, or null for a repository's origin
+     * @param checkUntrackedFiles False to only check the files that are in the index
+     * @return The repositories, in the same order as the given directories
+     */
+    static List<LocalGitRepo> openCleanRepos(int threads, List<File> gitDirs, List<String> remoteUrls, final boolean checkUntrackedFiles) throws ValidationException {
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, threads));
+        try {
+            List<ForkJoinTask<LocalGitRepo>> tasks = new ArrayList<ForkJoinTask<LocalGitRepo>>();
+            for (int i = 0; i < gitDirs.size(); i++) {
+                final File gitDir = gitDirs.get(i);
+                final String remoteUrl = remoteUrls.get(i);
+                tasks.add(pool.submit(new Callable<LocalGitRepo>() {
+                    @Override
+                    public LocalGitRepo call() throws ValidationException {
+                        LocalGitRepo repo = fromDir(remoteUrl, gitDir);
+                        repo.errorIfNotClean(checkUntrackedFiles);
+                        return repo;
+                    }
+                }));
+            }
+            List<LocalGitRepo> repos = new ArrayList<LocalGitRepo>();
+            List<ValidationException> failures = new ArrayList<ValidationException>();
+            List<String> messages = new ArrayList<String>();
+            for (int i = 0; i < tasks.size(); i++) {
+                try {
+                    repos.add(tasks.get(i).get());
+                } catch (ExecutionException e) {
+                    // the fork join pool wraps checked exceptions from callables in runtime exceptions
+                    Throwable cause = e.getCause();
+                    while (!(cause instanceof ValidationException) && cause instanceof RuntimeException && cause.getCause() != null) {
+                        cause = cause.getCause();
+                    }
+                    ValidationException failure = cause instanceof ValidationException
+                        ? (ValidationException) cause
+                        : new ValidationException("Could not check " + pathOf(gitDirs.get(i)), cause);
+                    failures.add(failure);
+                    messages.add(pathOf(gitDirs.get(i)) + ":");
+                    for (String message : failure.getMessages()) {
+                        messages.add("  " + message);
+                    }
+                }
+            }
+            if (failures.size() == 1) {
+                throw failures.get(0);
+            }
+            if (!failures.isEmpty()) {
+                String summary = failures.size() + " of the " + gitDirs.size() + " repositories cannot be released";
+                messages.add(0, summary);
+                throw new ValidationException(summary, messages);
+            }
+            return repos;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ValidationException("Interrupted while checking the repositories", e);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
     private static File getGitRootIfItExistsInOneOfTheParentDirectories(File candidateDir) {
         while (candidateDir != null && /* HACK ATTACK! Maybe.... */ !candidateDir.getName().equals("target") ) {
             if (new File(candidateDir, ".git").isDirectory()) {
@@ -181,11 +595,8 @@ public class LocalGitRepo {
 
     public List<String> getRemoteTags(String tagNameToSearchFor) throws GitAPIException {
         List<String> results = new ArrayList<>();
-        Collection<Ref> remoteTags = allRemoteTags();
-        for (Ref remoteTag : remoteTags) {
-            if (remoteTag.getName().equals("refs/tags/" + tagNameToSearchFor)) {
-                results.add(tagNameToSearchFor);
-            }
+        if (remoteTags().hasTag(tagNameToSearchFor)) {
+            results.add(tagNameToSearchFor);
         }
         return results;
     }
@@ -200,25 +611,155 @@ public class LocalGitRepo {
 
     public List<String> getRemoteTags(List<String> tagNamesToSearchFor) throws GitAPIException {
         List<String> results = new ArrayList<String>();
-        Collection<Ref> remoteTags = allRemoteTags();
-        for (Ref remoteTag : remoteTags) {
-            for (String proposedTag : tagNamesToSearchFor) {
-                if (remoteTag.getName().equals("refs/tags/" + proposedTag)) {
-                    results.add(proposedTag);
-                }
+        ReleaseTagIndex remoteTags = remoteTags();
+        for (String proposedTag : tagNamesToSearchFor) {
+            if (remoteTags.hasTag(proposedTag)) {
+                results.add(proposedTag);
             }
         }
         return results;
     }
 
+    /**
+     * @return An index of the tags on the remote, built the first time the remote tags are needed.
+     */
+    public ReleaseTagIndex remoteTags() throws GitAPIException {
+        if (remoteTagIndex == null) {
+            remoteTagIndex = ReleaseTagIndex.fromRefs(allRemoteTags());
+        }
+        return remoteTagIndex;
+    }
+
     public Collection<Ref> allRemoteTags() throws GitAPIException {
         if (remoteTags == null) {
-            LsRemoteCommand lsRemoteCommand = git.lsRemote().setTags(true).setHeads(false);
-            if (remoteUrl != null) {
-                lsRemoteCommand.setRemote(remoteUrl);
+            if (offline) {
+                remoteTags = remoteTagsFromSnapshot();
+            } else {
+                if (remoteTagMirrorMaxAgeMillis >= 0) {
+                    remoteTags = mirroredRemoteTags();
+                } else {
+                    LsRemoteCommand lsRemoteCommand = git.lsRemote().setTags(true).setHeads(false);
+                    if (remoteUrl != null) {
+                        lsRemoteCommand.setRemote(remoteUrl);
+                    }
+                    remoteTags = lsRemoteCommand.call();
+                }
+                if (snapshotLog != null) {
+                    saveRemoteTagSnapshot();
+                }
             }
-            remoteTags = lsRemoteCommand.call();
         }
         return remoteTags;
     }
+
+    /**
+     * Makes the remote tags be saved to a snapshot file in the Git directory each time they are read from the
+     * remote, so that later offline runs can use them.
+     */
+    public void saveRemoteTagSnapshots(Log log) {
+        this.snapshotLog = log;
+    }
+
+    /**
+     * Makes the remote tags be read from the snapshot saved by the last run that read them from the remote, so the
+     * remote is not contacted. If there is no snapshot then only the local tags are known.
+     *
+     * @param warningAgeMillis A warning is logged if the snapshot is older than this
+     */
+    public void useOfflineSnapshot(Log log, long warningAgeMillis) {
+        this.snapshotLog = log;
+        this.offline = true;
+        this.offlineSnapshotWarningAgeMillis = warningAgeMillis;
+    }
+
+    private File remoteTagSnapshotFile() {
+        return new File(new File(git.getRepository().getDirectory(), "releaser"), "remote-tags-" + remoteId() + ".snapshot.gz");
+    }
+
+    private void saveRemoteTagSnapshot() {
+        File file = remoteTagSnapshotFile();
+        try {
+            RemoteTagSnapshot.write(file, remoteTags);
+        } catch (IOException e) {
+            snapshotLog.warn("Could not save the remote tags to " + file + " for offline use: " + e);
+        }
+    }
+
+    private Collection<Ref> remoteTagsFromSnapshot() {
+        File file = remoteTagSnapshotFile();
+        if (!file.isFile()) {
+            snapshotLog.warn("Running offline with no saved remote tags, so only local tags are checked. Run once online to save the remote tags.");
+            return Collections.emptyList();
+        }
+        long age = System.currentTimeMillis() - file.lastModified();
+        if (age > offlineSnapshotWarningAgeMillis) {
+            snapshotLog.warn("Running offline with remote tags saved " + (age / (60 * 60 * 1000)) + " hours ago, so tags created on the remote since then are not known.");
+        }
+        try {
+            return RemoteTagSnapshot.read(file);
+        } catch (IOException e) {
+            throw new JGitInternalException("Could not read the saved remote tags from " + file, e);
+        }
+    }
+
+    /**
+     * @return A name for the remote that can be used in file and ref names
+     */
+    private String remoteId() {
+        return remoteUrl == null ? Constants.DEFAULT_REMOTE_NAME : new ObjectInserter.Formatter().idFor(Constants.OBJ_BLOB, Constants.encode(remoteUrl)).name();
+    }
+
+    /**
+     * Makes the remote tags be read from a local mirror of them, kept under {@link #REMOTE_TAG_MIRROR_PREFIX}, rather
+     * than listing the tags on the remote each time. The mirror is updated with a fetch, which only downloads the
+     * tags that are new, if it was last updated longer ago than the given time.
+     *
+     * @param maxAgeMillis How out of date the mirror is allowed to be, where 0 updates it every time it is used
+     */
+    public void useRemoteTagMirror(long maxAgeMillis) {
+        this.remoteTagMirrorMaxAgeMillis = maxAgeMillis;
+    }
+
+    private Collection<Ref> mirroredRemoteTags() throws GitAPIException {
+        Repository repository = git.getRepository();
+        String remote = remoteUrl == null ? Constants.DEFAULT_REMOTE_NAME : remoteUrl;
+        String mirrorName = remoteId();
+        String prefix = REMOTE_TAG_MIRROR_PREFIX + mirrorName + "/";
+        File lastFetched = new File(new File(repository.getDirectory(), "releaser"), "remote-tags-" + mirrorName + ".fetched");
+
+        long age = System.currentTimeMillis() - lastFetched.lastModified();
+        if (remoteTagMirrorMaxAgeMillis == 0 || !lastFetched.isFile() || age >= remoteTagMirrorMaxAgeMillis) {
+            git.fetch()
+                .setRemote(remote)
+                .setRefSpecs(new RefSpec("+" + Constants.R_TAGS + "*:" + prefix + "*"))
+                .setTagOpt(TagOpt.NO_TAGS)
+                .setRemoveDeletedRefs(true)
+                .call();
+            try {
+                touch(lastFetched);
+            } catch (IOException e) {
+                throw new JGitInternalException("Could not record when the remote tags were fetched in " + lastFetched, e);
+            }
+        }
+
+        List<Ref> tags = new ArrayList<Ref>();
+        try {
+            for (Ref mirrored : repository.getRefDatabase().getRefs(prefix).values()) {
+                tags.add(new ObjectIdRef.Unpeeled(Ref.Storage.NETWORK, Constants.R_TAGS + mirrored.getName().substring(prefix.length()), mirrored.getObjectId()));
+            }
+        } catch (IOException e) {
+            throw new JGitInternalException("Could not read the mirrored remote tags under " + prefix, e);
+        }
+        return tags;
+    }
+
+    private static void touch(File file) throws IOException {
+        File dir = file.getParentFile();
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Could not create " + dir);
+        }
+        if (!file.createNewFile() && !file.setLastModified(System.currentTimeMillis())) {
+            throw new IOException("Could not update the modified time of " + file);
+        }
+    }
 }
@@ -0,0 +1,132 @@
+package com.github.danielflower.mavenplugins.release;
+
+import org.apache.maven.model.Dependency;
+import org.apache.maven.project.MavenProject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The projects of a reactor keyed by "groupId:artifactId", along with the projects that each one depends on or
+ * has as its parent. As the projects are in build order, a project's upstream projects always come before it, so
+ * changes can be passed down the graph in a single pass over the projects.
+ */
+public class ModuleGraph {
+
+    private final Map<String, Integer> indexByLabel = new HashMap<String, Integer>();
+    private final List<int[]> upstreamIndexes = new ArrayList<int[]>();
+
+    private ModuleGraph() {
+    }
+
+    public static ModuleGraph fromProjects(List<MavenProject> projectsInBuildOrder) {
+        ModuleGraph graph = new ModuleGraph();
+        for (int i = 0; i < projectsInBuildOrder.size(); i++) {
+            MavenProject project = projectsInBuildOrder.get(i);
+            String label = labelOf(project.getGroupId(), project.getArtifactId());
+            if (!graph.indexByLabel.containsKey(label)) {
+                graph.indexByLabel.put(label, i);
+            }
+        }
+        for (int i = 0; i < projectsInBuildOrder.size(); i++) {
+            MavenProject project = projectsInBuildOrder.get(i);
+            BitSet upstream = new BitSet();
+            for (Dependency dependency : project.getModel().getDependencies()) {
+                graph.addIfBuiltBefore(upstream, i, labelOf(dependency.getGroupId(), dependency.getArtifactId()));
+            }
+            if (project.getParent() != null) {
+                graph.addIfBuiltBefore(upstream, i, labelOf(project.getParent().getGroupId(), project.getParent().getArtifactId()));
+            }
+            int[] indexes = new int[upstream.cardinality()];
+            int next = 0;
+            for (int j = upstream.nextSetBit(0); j >= 0; j = upstream.nextSetBit(j + 1)) {
+                indexes[next++] = j;
+            }
+            graph.upstreamIndexes.add(indexes);
+        }
+        return graph;
+    }
+
+    private void addIfBuiltBefore(BitSet upstream, int index, String label) {
+        Integer upstreamIndex = indexByLabel.get(label);
+        if (upstreamIndex != null && upstreamIndex < index) {
+            upstream.set(upstreamIndex);
+        }
+    }
+
+    /**
+     * @return The build order positions of the projects that the project at the given position depends on or has as
+     * its parent, in build order.
+     */
+    public int[] upstreamOf(int index) {
+        return upstreamIndexes.get(index);
+    }
+
+    /**
+     * @param selected The build order positions of the projects being built
+     * @return The largest number of the selected projects where none of them depends on another, directly or
+     * through any number of other projects, which is the most that could be built at the same time. By Dilworth's
+     * theorem this is the number of selected projects less the size of a maximum matching that pairs selected
+     * projects with selected projects upstream of them.
+     */
+    public int widthOf(BitSet selected) {
+        int size = upstreamIndexes.size();
+        BitSet[] allUpstream = new BitSet[size];
+        BitSet[] selectedUpstream = new BitSet[size];
+        for (int i = 0; i < size; i++) {
+            BitSet upstream = new BitSet();
+            for (int direct : upstreamIndexes.get(i)) {
+                upstream.set(direct);
+                upstream.or(allUpstream[direct]);
+            }
+            allUpstream[i] = upstream;
+            if (selected.get(i)) {
+                selectedUpstream[i] = (BitSet) upstream.clone();
+                selectedUpstream[i].and(selected);
+            }
+        }
+
+        int[] matchedDownstream = new int[size];
+        Arrays.fill(matchedDownstream, -1);
+        int matches = 0;
+        for (int i = selected.nextSetBit(0); i >= 0; i = selected.nextSetBit(i + 1)) {
+            if (matchWithUpstream(i, selectedUpstream, matchedDownstream, new BitSet())) {
+                matches++;
+            }
+        }
+        return selected.cardinality() - matches;
+    }
+
+    /**
+     * Finds an augmenting path that matches the downstream project with one of its selected upstream projects, trying
+     * the nearest upstream projects first as they are the most likely to be free.
+     */
+    private static boolean matchWithUpstream(int downstream, BitSet[] selectedUpstream, int[] matchedDownstream, BitSet visited) {
+        BitSet candidates = selectedUpstream[downstream];
+        for (int upstream = candidates.previousSetBit(candidates.length() - 1); upstream >= 0; upstream = candidates.previousSetBit(upstream - 1)) {
+            if (!visited.get(upstream)) {
+                visited.set(upstream);
+                if (matchedDownstream[upstream] < 0 || matchWithUpstream(matchedDownstream[upstream], selectedUpstream, matchedDownstream, visited)) {
+                    matchedDownstream[upstream] = downstream;
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return The build order position of the project, or null if it is not in the reactor.
+     */
+    public Integer indexOf(String groupId, String artifactId) {
+        return indexByLabel.get(labelOf(groupId, artifactId));
+    }
+
+    public static String labelOf(String groupId, String artifactId) {
+        return groupId + ":" + artifactId;
+    }
+}
@@ -1,6 +1,5 @@
 package com.github.danielflower.mavenplugins.release;
 
-import org.apache.maven.model.Dependency;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.project.MavenProject;
@@ -9,7 +8,9 @@ import org.eclipse.jgit.lib.Ref;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Created by id848421 on 15/02/2017.
@@ -18,10 +19,17 @@ public class MultiRepoReactor {
 
     private final List<ReleasableModule> modulesInBuildOrder;
     private final List<ModuleInfo> moduleInfos;
+    private final Map<String, ReleasableModule> modulesByLabel = new HashMap<>();
 
     public MultiRepoReactor(List<ReleasableModule> modulesInBuildOrder, List<ModuleInfo> moduleInfos) {
         this.modulesInBuildOrder = modulesInBuildOrder;
         this.moduleInfos = moduleInfos;
+        for (ReleasableModule module : modulesInBuildOrder) {
+            String label = ModuleGraph.labelOf(module.getGroupId(), module.getArtifactId());
+            if (!modulesByLabel.containsKey(label)) {
+                modulesByLabel.put(label, module);
+            }
+        }
     }
 
     public List<ReleasableModule> getModulesInBuildOrder() {
@@ -34,33 +42,26 @@ public class MultiRepoReactor {
 
         List<ReleasableModule> modules = new ArrayList<>();
         VersionNamerWithoutBuildNumber versionNamer = new VersionNamerWithoutBuildNumber();
+        List<MavenProject> projects = new ArrayList<>();
+        for (ModuleInfo moduleInfo : moduleInfos) {
+            projects.add(moduleInfo.getMavenProject());
+        }
+        ModuleGraph graph = ModuleGraph.fromProjects(projects);
         for (ModuleInfo moduleInfo : moduleInfos) {
             DiffDetector detector = new MultiRepoTreeWalkingDiffDetector(moduleInfo.getGitRepo().git.getRepository());
             String artifactId = moduleInfo.getMavenProject().getArtifactId();
             String versionWithoutBuildNumber = moduleInfo.getMavenProject().getVersion().replace("-SNAPSHOT", "");
-            List<AnnotatedTag> previousTagsForThisModule = AnnotatedTagFinder.tagsForVersionNoBuildNumber(moduleInfo.getGitRepo().git, artifactId, versionWithoutBuildNumber);
+            List<AnnotatedTag> previousTagsForThisModule = AnnotatedTagFinder.tagsForVersionNoBuildNumber(moduleInfo.getGitRepo().git.getRepository(), moduleInfo.getGitRepo().localTags(), artifactId, versionWithoutBuildNumber);
 
             VersionName newVersion = versionNamer.name(moduleInfo.getMavenProject().getVersion());
 
             boolean oneOfTheDependenciesHasChanged = false;
             String changedDependency = null;
-            for (ReleasableModule module : modules) {
+            for (int upstreamIndex : graph.upstreamOf(modules.size())) {
+                ReleasableModule module = modules.get(upstreamIndex);
                 if (module.willBeReleased()) {
-                    for (Dependency dependency : moduleInfo.getMavenProject().getModel().getDependencies()) {
-                        if (dependency.getGroupId().equals(module.getGroupId()) && dependency.getArtifactId().equals(module.getArtifactId())) {
-                            oneOfTheDependenciesHasChanged = true;
-                            changedDependency = dependency.getArtifactId();
-                            break;
-                        }
-                    }
-                    if (moduleInfo.getMavenProject().getParent() != null
-                        && (moduleInfo.getMavenProject().getParent().getGroupId().equals(module.getGroupId()) && moduleInfo.getMavenProject().getParent().getArtifactId().equals(module.getArtifactId()))) {
-                        oneOfTheDependenciesHasChanged = true;
-                        changedDependency = moduleInfo.getMavenProject().getParent().getArtifactId();
-                        break;
-                    }
-                }
-                if (oneOfTheDependenciesHasChanged) {
+                    oneOfTheDependenciesHasChanged = true;
+                    changedDependency = module.getArtifactId();
                     break;
                 }
             }
@@ -152,17 +153,11 @@ public class MultiRepoReactor {
     }
 
     public ReleasableModule findByLabel(String label) {
-        for (ReleasableModule module : modulesInBuildOrder) {
-            String currentLabel = module.getGroupId() + ":" + module.getArtifactId();
-            if (currentLabel.equals(label)) {
-                return module;
-            }
-        }
-        return null;
+        return modulesByLabel.get(label);
     }
 
     public ReleasableModule find(String groupId, String artifactId, String version) throws UnresolvedSnapshotDependencyException {
-        ReleasableModule value = findByLabel(groupId + ":" + artifactId);
+        ReleasableModule value = findByLabel(ModuleGraph.labelOf(groupId, artifactId));
         if (value == null) {
             throw new UnresolvedSnapshotDependencyException(groupId, artifactId, version);
         }
@@ -19,11 +19,14 @@ import static java.lang.String.format;
 class MultiRepoReleaseInvoker {
 	static final String DEPLOY = "deploy";
 	static final String SKIP_TESTS = "-DskipTests=true";
+	static final String BUILDER = "-b";
 	private final Log log;
 	private final MavenProject project;
 	private final InvocationRequest request;
 	private final Invoker invoker;
 	private boolean skipTests;
+	private String threads;
+	private String builder;
 	private List<String> goals;
 	private List<String> modulesToRelease;
 	private List<String> releaseProfiles;
@@ -72,6 +75,14 @@ class MultiRepoReleaseInvoker {
 		this.skipTests = skipTests;
 	}
 
+	final void setThreads(final String threadsOrNull) {
+		threads = threadsOrNull;
+	}
+
+	final void setBuilder(final String builderOrNull) {
+		builder = builderOrNull;
+	}
+
 	final void setGlobalSettings(final File globalSettings) {
 		request.setGlobalSettingsFile(globalSettings);
 	}
@@ -89,6 +100,10 @@ class MultiRepoReleaseInvoker {
 		if (skipTests) {
 			goals.add(SKIP_TESTS);
 		}
+		if (builder != null && !builder.trim().isEmpty()) {
+			goals.add(BUILDER);
+			goals.add(builder.trim());
+		}
 		request.setGoals(getGoals());
 
 		final List<String> profiles = profilesToActivate();
@@ -108,9 +123,15 @@ class MultiRepoReleaseInvoker {
 		}
 		request.setProjects(changedModules);
 
+		final String buildThreads = BuildThreads.resolve(threads, reactor.getModulesInBuildOrder(), changedModules, true);
+		if (buildThreads != null) {
+			request.setThreads(buildThreads);
+		}
+
 		final String profilesInfo = profiles.isEmpty() ? "no profiles activated" : "profiles " + profiles;
+		final String threadsInfo = buildThreads == null ? "" : " on " + buildThreads + " threads";
 
-		log.info(format("About to run mvn %s with %s", goals, profilesInfo));
+		log.info(format("About to run mvn %s with %s%s", goals, profilesInfo, threadsInfo));
 
 		try {
 			final InvocationResult result = invoker.execute(request);
@@ -8,6 +8,7 @@ import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.project.MavenProject;
 import org.apache.maven.settings.io.DefaultSettingsWriter;
+import org.apache.maven.shared.invoker.DefaultInvocationRequest;
 import org.eclipse.jgit.api.errors.GitAPIException;
 
 import java.io.File;
@@ -15,7 +16,9 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import static java.util.Arrays.asList;
 
@@ -72,6 +75,46 @@ public class MultiRepoReleaseMojo extends BaseMojo {
      */
     @Parameter(alias = "skipTests", defaultValue = "false", property = "skipTests")
     private boolean skipTests;
+
+    /**
+     * <p>
+     * The number of threads to run the release build with, which is passed to Maven's <code>-T</code> option, such
+     * as <code>4</code> or <code>1C</code> for one thread per core. By default the release build uses one thread.
+     * </p>
+     * <p>
+     * If set to <code>auto</code>, the number of threads is the largest number of modules being built that do not
+     * depend on each other, up to the number of processors.
+     * </p>
+     */
+    @Parameter(alias = "releaseBuildThreads", property = "releaseBuildThreads")
+    private String releaseBuildThreads;
+
+    /**
+     * The Maven builder to run the release build with, which is passed to Maven's <code>-b</code> option, for
+     * example <code>multithreaded</code>. Maven's default builder is used if this is not set.
+     */
+    @Parameter(alias = "releaseBuilder", property = "releaseBuilder")
+    private String releaseBuilder;
+
+    /**
+     * <p>
+     * The program to run the release build with, either <code>Maven</code> to start a new Maven process, which is
+     * the default, or <code>MavenDaemon</code> to use the Maven Daemon (mvnd). The daemon keeps warmed up JVMs
+     * between builds, which saves the time taken to start Maven for each release.
+     * </p>
+     * <p>
+     * mvnd is found from <code>mvndExecutable</code>, the <code>MVND_HOME</code> environment variable or the
+     * <code>PATH</code>, in that order. If it cannot be found then a new Maven process is used.
+     * </p>
+     */
+    @Parameter(alias = "releaseBuildTool", defaultValue = "Maven", property = "releaseBuildTool")
+    private ReleaseBuildTool releaseBuildTool;
+
+    /**
+     * The path to the mvnd executable, when <code>releaseBuildTool</code> is <code>MavenDaemon</code>.
+     */
+    @Parameter(alias = "mvndExecutable", property = "mvndExecutable")
+    private File mvndExecutable;
     
 	/**
 	 * Specifies a custom, user specific Maven settings file to be used during the release build.
@@ -109,6 +152,7 @@ public class MultiRepoReleaseMojo extends BaseMojo {
         }
 
         try {
+            errorIfOfflineAndPushing(pushTags);
             configureJsch(log);
             List<ModuleInfo> moduleInfos = gatherModulesInfo();
             MultiRepoReactor multiRepoReactor = MultiRepoReactor.fromProjects(log, project, moduleInfos, modulesToForceRelease, noChangesAction);
@@ -123,7 +167,7 @@ public class MultiRepoReleaseMojo extends BaseMojo {
             tagAndPushRepo(log, multiRepoReactor);
             updatePoms(log, multiRepoReactor, true);
             try {
-            	final MultiRepoReleaseInvoker invoker = new MultiRepoReleaseInvoker(getLog(), project);
+            	final MultiRepoReleaseInvoker invoker = new MultiRepoReleaseInvoker(getLog(), project, new DefaultInvocationRequest(), releaseBuildTool.createInvoker(getLog(), mvndExecutable));
             	invoker.setGlobalSettings(globalSettings);
                 if (userSettings != null) {
                     invoker.setUserSettings(userSettings);
@@ -137,6 +181,8 @@ public class MultiRepoReleaseMojo extends BaseMojo {
             	invoker.setModulesToRelease(modulesToRelease);
             	invoker.setReleaseProfiles(releaseProfiles);
             	invoker.setSkipTests(skipTests);
+            	invoker.setThreads(releaseBuildThreads);
+            	invoker.setBuilder(releaseBuilder);
                 invoker.runMavenBuild(multiRepoReactor);
                 revertChanges(log, moduleInfos, true);
             } finally {
@@ -160,15 +206,24 @@ public class MultiRepoReleaseMojo extends BaseMojo {
 
             printBigErrorMessageAndThrow(log, e.getMessage(),
                     asList("There was an error while creating temporary settings file. The error was:", e.getMessage(), "Stack trace:", exceptionAsString));
+        } finally {
+            closeJsch();
         }
     }
 
     private List<ModuleInfo> gatherModulesInfo() throws ValidationException {
         List<ModuleInfo> modulesInfo =  new ArrayList<>();
         final String prefix = "../";
+        List<File> gitDirs = new ArrayList<>();
+        List<String> remoteUrls = new ArrayList<>();
         for(MavenProject moduleProject: projects){
-            LocalGitRepo gitRepo = LocalGitRepo.fromCurrentDir(getRemoteUrlOrNullIfNoneSet(moduleProject.getOriginalModel().getScm(), moduleProject.getModel().getScm()), moduleProject.getArtifactId());
-            gitRepo.errorIfNotClean();
+            gitDirs.add(new File(prefix + moduleProject.getArtifactId()));
+            remoteUrls.add(getRemoteUrlOrNullIfNoneSet(moduleProject.getOriginalModel().getScm(), moduleProject.getModel().getScm()));
+        }
+        List<LocalGitRepo> gitRepos = LocalGitRepo.openCleanRepos(releaseThreads, gitDirs, remoteUrls, checkUntrackedFiles);
+        for(int i = 0; i < projects.size(); i++){
+            MavenProject moduleProject = projects.get(i);
+            LocalGitRepo gitRepo = configureRemoteTags(gitRepos.get(i));
             ModuleInfo moduleInfo =  new ModuleInfo();
             if(project.hasParent() && !project.getParent().getArtifactId().contains("master-pom")){
                 moduleInfo.setRelativePath(project.getParent().getArtifactId() + "/" + moduleProject.getArtifactId());
@@ -257,22 +312,19 @@ public class MultiRepoReleaseMojo extends BaseMojo {
     }
 
     private void figureOutTagNamesAndThrowIfAlreadyExists(List<ReleasableModule> modules, List<String> modulesToRelease, List<ModuleInfo> moduleInfos) throws GitAPIException, ValidationException {
+        Map<LocalGitRepo, List<AnnotatedTag>> proposedTagsByRepo = new LinkedHashMap<LocalGitRepo, List<AnnotatedTag>>();
         for (final ReleasableModule module : modules) {
             if (!module.willBeReleased()) {
                 continue;
             }
             if (modulesToRelease == null || modulesToRelease.size() == 0 || module.isOneOf(modulesToRelease)) {
-                String tag = module.getTagName();
-                if (module.getGit().hasLocalTag(tag)) {
-                    String summary = "There is already a tag named " + tag + " in this repository.";
-                    throw new ValidationException(summary, asList(
-                        summary,
-                        "It is likely that this version has been released before.",
-                        "Please try incrementing the build number and trying again."
-                    ));
+                AnnotatedTag annotatedTag = AnnotatedTag.create(module.getTagName(), module.getVersion(), module.getBuildNumber(), false);
+                List<AnnotatedTag> proposedTags = proposedTagsByRepo.get(module.getGit());
+                if (proposedTags == null) {
+                    proposedTags = new ArrayList<AnnotatedTag>();
+                    proposedTagsByRepo.put(module.getGit(), proposedTags);
                 }
-
-                AnnotatedTag annotatedTag = AnnotatedTag.create(tag, module.getVersion(), module.getBuildNumber(), false);
+                proposedTags.add(annotatedTag);
                 for(ModuleInfo moduleInfo: moduleInfos){
                     if(moduleInfo.getMavenProject().getArtifactId().contentEquals(module.getArtifactId())){
                         moduleInfo.setProposedTag(annotatedTag);
@@ -282,6 +334,13 @@ public class MultiRepoReleaseMojo extends BaseMojo {
             }
         }
 
+        for (Map.Entry<LocalGitRepo, List<AnnotatedTag>> proposedTags : proposedTagsByRepo.entrySet()) {
+            List<String> matchingLocalTags = proposedTags.getKey().localTagsFrom(proposedTags.getValue());
+            if (matchingLocalTags.size() > 0) {
+                throw ReleaseMojo.tagAlreadyExists(matchingLocalTags.get(0));
+            }
+        }
+
         for(ModuleInfo moduleInfo: moduleInfos){
             if(moduleInfo.getProposedTag() == null){
                 continue;
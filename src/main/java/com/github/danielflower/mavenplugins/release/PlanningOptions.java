@@ -0,0 +1,77 @@
+package com.github.danielflower.mavenplugins.release;
+
+import java.io.File;
+
+/**
+ * Optional settings that change how the {@link Reactor} works out which modules to release. The defaults
+ * give the original behaviour.
+ */
+public class PlanningOptions {
+
+    private boolean singlePassChangeDetection = false;
+    private boolean changeDetectionCache = false;
+    private File changeDetectionCacheDirectory;
+    private int releaseThreads = 1;
+    private boolean releaseLedger = false;
+    private ReleaseReport report = new ReleaseReport();
+
+    public boolean isSinglePassChangeDetection() {
+        return singlePassChangeDetection;
+    }
+
+    public void setSinglePassChangeDetection(boolean singlePassChangeDetection) {
+        this.singlePassChangeDetection = singlePassChangeDetection;
+    }
+
+    public boolean isChangeDetectionCache() {
+        return changeDetectionCache;
+    }
+
+    public void setChangeDetectionCache(boolean changeDetectionCache) {
+        this.changeDetectionCache = changeDetectionCache;
+    }
+
+    /**
+     * @return The directory to keep the change detection cache in, or null to use the Git directory.
+     */
+    public File getChangeDetectionCacheDirectory() {
+        return changeDetectionCacheDirectory;
+    }
+
+    public void setChangeDetectionCacheDirectory(File changeDetectionCacheDirectory) {
+        this.changeDetectionCacheDirectory = changeDetectionCacheDirectory;
+    }
+
+    /**
+     * @return The number of threads used to detect changes in the modules, where 1 means the modules are checked one at a time.
+     */
+    public int getReleaseThreads() {
+        return releaseThreads;
+    }
+
+    public void setReleaseThreads(int releaseThreads) {
+        this.releaseThreads = releaseThreads;
+    }
+
+    /**
+     * @return True to look up the latest release of each module in the {@link ReleaseLedger} before searching the tags.
+     */
+    public boolean isReleaseLedger() {
+        return releaseLedger;
+    }
+
+    public void setReleaseLedger(boolean releaseLedger) {
+        this.releaseLedger = releaseLedger;
+    }
+
+    /**
+     * @return Where the timings and counts of the planning are recorded.
+     */
+    public ReleaseReport getReport() {
+        return report;
+    }
+
+    public void setReport(ReleaseReport report) {
+        this.report = report;
+    }
+}
@@ -1,8 +1,12 @@
 package com.github.danielflower.mavenplugins.release;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.Writer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Properties;
 
@@ -12,22 +16,35 @@ import org.apache.maven.model.Plugin;
 import org.apache.maven.model.io.xpp3.MavenXpp3Writer;
 import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.IOUtil;
+import org.codehaus.plexus.util.ReaderFactory;
 import org.codehaus.plexus.util.WriterFactory;
+import org.codehaus.plexus.util.xml.XmlStreamReader;
 
 public class PomUpdater {
 
+    private static final byte[] UTF8_BYTE_ORDER_MARK = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+    private static final char BYTE_ORDER_MARK = '\uFEFF';
+
     private final Log log;
     private final Reactor reactor;
+    private final ReleaseReport report;
 
     public PomUpdater(Log log, Reactor reactor) {
+        this(log, reactor, new ReleaseReport());
+    }
+
+    public PomUpdater(Log log, Reactor reactor, ReleaseReport report) {
         this.log = log;
         this.reactor = reactor;
+        this.report = report;
     }
 
     public UpdateResult updateVersion() {
         List<File> changedPoms = new ArrayList<File>();
         List<String> errors = new ArrayList<String>();
         for (ReleasableModule module : reactor.getModulesInBuildOrder()) {
+            long startedAt = System.nanoTime();
             try {
                 MavenProject project = module.getProject();
                 if (module.willBeReleased()) {
@@ -38,23 +55,79 @@ public class PomUpdater {
                 errors.addAll(errorsForCurrentPom);
 
                 File pom = project.getFile().getCanonicalFile();
-                changedPoms.add(pom);
-                Writer fileWriter = WriterFactory.newXmlWriter(pom);
-
                 Model originalModel = project.getOriginalModel();
-                try {
-                    MavenXpp3Writer pomWriter = new MavenXpp3Writer();
-                    pomWriter.write(fileWriter, originalModel);
-                } finally {
-                    fileWriter.close();
+                if (writeVersions(pom, originalModel)) {
+                    changedPoms.add(pom);
+                    report.increment(ReleaseReport.POMS_WRITTEN, 1);
+                } else {
+                    log.debug(" " + pom + " already has the release versions so has not been changed");
                 }
             } catch (Exception e) {
                 return new UpdateResult(changedPoms, errors, e);
+            } finally {
+                report.moduleStepFinished(module.getArtifactId(), ReleaseReport.POM_WRITE, startedAt);
             }
         }
         return new UpdateResult(changedPoms, errors, null);
     }
 
+    /**
+     * Writes the new versions to the pom file. Only the version numbers are changed in the file, unless they cannot
+     * be found, in which case the whole model is written out. A UTF-8 byte order mark is kept, as the reader drops it.
+     *
+     * @return true if the file was changed
+     */
+    static boolean writeVersions(File pom, Model originalModel) throws IOException {
+        boolean hasByteOrderMark = startsWithUtf8ByteOrderMark(pom);
+        XmlStreamReader reader = ReaderFactory.newXmlReader(pom);
+        String encoding;
+        String originalPom;
+        try {
+            encoding = reader.getEncoding();
+            originalPom = IOUtil.toString(reader);
+        } finally {
+            reader.close();
+        }
+
+        String patchedPom = PomVersionPatcher.patch(originalPom, originalModel);
+        if (patchedPom != null && patchedPom.equals(originalPom)) {
+            return false;
+        }
+        Writer fileWriter = patchedPom == null ? WriterFactory.newXmlWriter(pom) : WriterFactory.newWriter(pom, encoding);
+        try {
+            if (patchedPom == null) {
+                MavenXpp3Writer pomWriter = new MavenXpp3Writer();
+                pomWriter.write(fileWriter, originalModel);
+            } else {
+                if (hasByteOrderMark) {
+                    fileWriter.write(BYTE_ORDER_MARK);
+                }
+                fileWriter.write(patchedPom);
+            }
+        } finally {
+            fileWriter.close();
+        }
+        return true;
+    }
+
+    private static boolean startsWithUtf8ByteOrderMark(File file) throws IOException {
+        byte[] start = new byte[UTF8_BYTE_ORDER_MARK.length];
+        InputStream in = new FileInputStream(file);
+        try {
+            int read = 0;
+            while (read < start.length) {
+                int count = in.read(start, read, start.length - read);
+                if (count < 0) {
+                    return false;
+                }
+                read += count;
+            }
+        } finally {
+            in.close();
+        }
+        return Arrays.equals(start, UTF8_BYTE_ORDER_MARK);
+    }
+
     public static class UpdateResult {
         public final List<File> alteredPoms;
         public final List<String> dependencyErrors;
@@ -0,0 +1,313 @@
+package com.github.danielflower.mavenplugins.release;
+
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Changes the version numbers in the text of a pom file to match a model, leaving every other character as it was.
+ * <p>
+ * Only the project version, the parent version and the versions of the project's dependencies are looked at, as
+ * these are the only values that {@link PomUpdater} changes. If the pom cannot be matched up with the model, for
+ * example because a version is given as an empty element, then null is returned and the caller should write out
+ * the whole model instead.
+ * </p>
+ */
+public class PomVersionPatcher {
+
+    private static final String PROJECT_VERSION = "project/version";
+    private static final String PROJECT_ARTIFACT_ID = "project/artifactId";
+    private static final String PARENT_VERSION = "project/parent/version";
+    private static final String DEPENDENCY = "project/dependencies/dependency";
+    private static final String DEPENDENCY_ARTIFACT_ID = "project/dependencies/dependency/artifactId";
+    private static final String DEPENDENCY_VERSION = "project/dependencies/dependency/version";
+
+    private final String pom;
+    private Element projectVersion;
+    private Element projectArtifactId;
+    private Element parentVersion;
+    private final List<Element> dependencyArtifactIds = new ArrayList<Element>();
+    private final List<Element> dependencyVersions = new ArrayList<Element>();
+    private final List<Replacement> replacements = new ArrayList<Replacement>();
+
+    private PomVersionPatcher(String pom) {
+        this.pom = pom;
+    }
+
+    /**
+     * @param pom The text of the pom file that the model was read from
+     * @param model The model with the new version numbers
+     * @return The pom text with the new version numbers, or null if the versions could not be found in the text
+     */
+    public static String patch(String pom, Model model) {
+        PomVersionPatcher patcher = new PomVersionPatcher(pom);
+        if (!patcher.scan() || !patcher.planReplacements(model)) {
+            return null;
+        }
+        return patcher.applyReplacements();
+    }
+
+    private boolean planReplacements(Model model) {
+        if (model.getVersion() != null) {
+            if (projectVersion != null) {
+                if (!replaceIfDifferent(projectVersion, model.getVersion())) {
+                    return false;
+                }
+            } else if (projectArtifactId != null) {
+                insertVersionAfter(projectArtifactId, model.getVersion());
+            } else {
+                return false;
+            }
+        }
+        if (model.getParent() != null && model.getParent().getVersion() != null) {
+            if (parentVersion == null || !replaceIfDifferent(parentVersion, model.getParent().getVersion())) {
+                return false;
+            }
+        }
+        List<Dependency> dependencies = model.getDependencies();
+        if (dependencies.size() != dependencyVersions.size()) {
+            return false;
+        }
+        for (int i = 0; i < dependencies.size(); i++) {
+            Dependency dependency = dependencies.get(i);
+            Element artifactId = dependencyArtifactIds.get(i);
+            if (artifactId == null || !artifactId.text().equals(dependency.getArtifactId())) {
+                return false;
+            }
+            Element version = dependencyVersions.get(i);
+            if (dependency.getVersion() == null) {
+                if (version != null) {
+                    return false;
+                }
+            } else if (version == null || !replaceIfDifferent(version, dependency.getVersion())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean replaceIfDifferent(Element element, String newValue) {
+        if (element.containsMarkup) {
+            return false;
+        }
+        if (!element.text().equals(newValue)) {
+            replacements.add(new Replacement(element.textStart(), element.textEnd(), escape(newValue)));
+        }
+        return true;
+    }
+
+    private void insertVersionAfter(Element sibling, String version) {
+        int lineStart = pom.lastIndexOf('\n', sibling.start) + 1;
+        String indent = pom.substring(lineStart, sibling.start);
+        if (!indent.trim().isEmpty()) {
+            indent = "";
+        }
+        String lineSeparator = pom.contains("\r\n") ? "\r\n" : "\n";
+        replacements.add(new Replacement(sibling.end, sibling.end, lineSeparator + indent + "<version>" + escape(version) + "</version>"));
+    }
+
+    private String applyReplacements() {
+        Collections.sort(replacements, new Comparator<Replacement>() {
+            @Override
+            public int compare(Replacement o1, Replacement o2) {
+                return Integer.compare(o1.start, o2.start);
+            }
+        });
+        StringBuilder result = new StringBuilder(pom.length() + 64);
+        int copiedUpTo = 0;
+        for (Replacement replacement : replacements) {
+            result.append(pom, copiedUpTo, replacement.start).append(replacement.text);
+            copiedUpTo = replacement.end;
+        }
+        result.append(pom, copiedUpTo, pom.length());
+        return result.toString();
+    }
+
+    /**
+     * Finds the elements of interest with a simple scan of the markup.
+     *
+     * @return false if the pom is not well formed enough to be patched
+     */
+    private boolean scan() {
+        List<Element> openElements = new ArrayList<Element>();
+        int i = 0;
+        while (true) {
+            int lt = pom.indexOf('<', i);
+            if (lt < 0) {
+                return openElements.isEmpty();
+            }
+            if (!openElements.isEmpty() && !pom.startsWith("</", lt)) {
+                openElements.get(openElements.size() - 1).containsMarkup = true;
+            }
+            if (pom.startsWith("<!--", lt)) {
+                i = endOf(pom.indexOf("-->", lt + 4), 3);
+            } else if (pom.startsWith("<![CDATA[", lt)) {
+                i = endOf(pom.indexOf("]]>", lt + 9), 3);
+            } else if (pom.startsWith("<?", lt)) {
+                i = endOf(pom.indexOf("?>", lt + 2), 2);
+            } else if (pom.startsWith("<!", lt)) {
+                i = endOf(pom.indexOf('>', lt + 2), 1);
+            } else if (pom.startsWith("</", lt)) {
+                int gt = pom.indexOf('>', lt + 2);
+                if (gt < 0 || openElements.isEmpty()) {
+                    return false;
+                }
+                Element element = openElements.remove(openElements.size() - 1);
+                if (!element.name.equals(localName(pom.substring(lt + 2, gt).trim()))) {
+                    return false;
+                }
+                element.contentEnd = lt;
+                element.end = gt + 1;
+                closed(element, pathOf(openElements, element));
+                i = gt + 1;
+            } else {
+                int gt = endOfStartTag(lt);
+                if (gt < 0) {
+                    return false;
+                }
+                boolean empty = pom.charAt(gt - 1) == '/';
+                Element element = new Element(localName(nameOfStartTag(lt + 1, empty ? gt - 1 : gt)), lt, gt + 1);
+                if (empty) {
+                    String path = pathOf(openElements, element);
+                    if (path.equals(PROJECT_VERSION) || path.equals(PARENT_VERSION) || path.equals(DEPENDENCY_VERSION)) {
+                        return false;
+                    }
+                    if (path.equals(DEPENDENCY)) {
+                        dependencyArtifactIds.add(null);
+                        dependencyVersions.add(null);
+                    }
+                } else {
+                    openElements.add(element);
+                    if (pathOf(openElements, null).equals(DEPENDENCY)) {
+                        dependencyArtifactIds.add(null);
+                        dependencyVersions.add(null);
+                    }
+                }
+                i = gt + 1;
+            }
+            if (i < 0) {
+                return false;
+            }
+        }
+    }
+
+    private void closed(Element element, String path) {
+        if (path.equals(PROJECT_VERSION)) {
+            projectVersion = element;
+        } else if (path.equals(PROJECT_ARTIFACT_ID)) {
+            projectArtifactId = element;
+        } else if (path.equals(PARENT_VERSION)) {
+            parentVersion = element;
+        } else if (path.equals(DEPENDENCY_ARTIFACT_ID)) {
+            dependencyArtifactIds.set(dependencyArtifactIds.size() - 1, element);
+        } else if (path.equals(DEPENDENCY_VERSION)) {
+            dependencyVersions.set(dependencyVersions.size() - 1, element);
+        }
+    }
+
+    private static int endOf(int index, int length) {
+        return index < 0 ? -1 : index + length;
+    }
+
+    private int endOfStartTag(int lt) {
+        char quote = 0;
+        for (int i = lt + 1; i < pom.length(); i++) {
+            char c = pom.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+            } else if (c == '>') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private String nameOfStartTag(int start, int end) {
+        int i = start;
+        while (i < end && !Character.isWhitespace(pom.charAt(i))) {
+            i++;
+        }
+        return pom.substring(start, i);
+    }
+
+    private static String localName(String name) {
+        int colon = name.indexOf(':');
+        return colon < 0 ? name : name.substring(colon + 1);
+    }
+
+    private static String pathOf(List<Element> openElements, Element last) {
+        StringBuilder path = new StringBuilder();
+        for (Element element : openElements) {
+            if (path.length() > 0) {
+                path.append('/');
+            }
+            path.append(element.name);
+        }
+        if (last != null) {
+            if (path.length() > 0) {
+                path.append('/');
+            }
+            path.append(last.name);
+        }
+        return path.toString();
+    }
+
+    private static String escape(String value) {
+        return value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+
+    private class Element {
+        final String name;
+        final int start;
+        final int contentStart;
+        int contentEnd;
+        int end;
+        boolean containsMarkup = false;
+
+        Element(String name, int start, int contentStart) {
+            this.name = name;
+            this.start = start;
+            this.contentStart = contentStart;
+        }
+
+        String text() {
+            return pom.substring(textStart(), textEnd());
+        }
+
+        int textStart() {
+            int i = contentStart;
+            while (i < contentEnd && Character.isWhitespace(pom.charAt(i))) {
+                i++;
+            }
+            return i;
+        }
+
+        int textEnd() {
+            int i = contentEnd;
+            while (i > textStart() && Character.isWhitespace(pom.charAt(i - 1))) {
+                i--;
+            }
+            return i;
+        }
+    }
+
+    private static class Replacement {
+        final int start;
+        final int end;
+        final String text;
+
+        Replacement(int start, int end, String text) {
+            this.start = start;
+            this.end = end;
+            this.text = text;
+        }
+    }
+}
@@ -1,40 +1,108 @@
 package com.github.danielflower.mavenplugins.release;
 
-import org.apache.maven.model.Dependency;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.project.MavenProject;
 import org.eclipse.jgit.api.errors.GitAPIException;
-import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.lib.Repository;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 public class Reactor {
 
     private final List<ReleasableModule> modulesInBuildOrder;
+    private final Map<String, ReleasableModule> modulesByLabel = new HashMap<String, ReleasableModule>();
 
     public Reactor(List<ReleasableModule> modulesInBuildOrder) {
         this.modulesInBuildOrder = modulesInBuildOrder;
+        for (ReleasableModule module : modulesInBuildOrder) {
+            String label = ModuleGraph.labelOf(module.getGroupId(), module.getArtifactId());
+            if (!modulesByLabel.containsKey(label)) {
+                modulesByLabel.put(label, module);
+            }
+        }
     }
 
     public List<ReleasableModule> getModulesInBuildOrder() {
         return modulesInBuildOrder;
     }
 
-    public static Reactor fromProjects(Log log, LocalGitRepo gitRepo, MavenProject rootProject, List<MavenProject> projects, Long buildNumber, List<String> modulesToForceRelease, NoChangesAction actionWhenNoChangesDetected) throws ValidationException, GitAPIException, MojoExecutionException {
-        DiffDetector detector = new TreeWalkingDiffDetector(gitRepo.git.getRepository());
+    public static Reactor fromProjects(Log log, LocalGitRepo gitRepo, MavenProject rootProject, List<MavenProject> projects, Long buildNumber, List<String> modulesToForceRelease, NoChangesAction actionWhenNoChangesDetected, PlanningOptions options) throws ValidationException, GitAPIException, MojoExecutionException {
+        Repository repository = gitRepo.git.getRepository();
+        ReleaseReport report = options.getReport();
+        DiffDetector detector = new TreeWalkingDiffDetector(repository, report);
         List<ReleasableModule> modules = new ArrayList<ReleasableModule>();
         VersionNamer versionNamer = new VersionNamer();
+        ReleaseLedger ledger = null;
+        if (options.isReleaseLedger()) {
+            try {
+                ledger = ReleaseLedger.read(repository);
+            } catch (IOException e) {
+                log.warn("Could not read the release ledger so the previous releases will be found from the tags: " + e);
+            }
+        }
+        ReleaseTagIndex localTags = null;
+
+        List<List<AnnotatedTag>> previousTagsForEachProject = new ArrayList<List<AnnotatedTag>>();
         for (MavenProject project : projects) {
+            long startedAt = System.nanoTime();
+            String versionWithoutBuildNumber = project.getVersion().replace("-SNAPSHOT", "");
+            List<AnnotatedTag> previousTags = ledger == null ? null : latestReleaseFromLedger(ledger, project.getArtifactId(), versionWithoutBuildNumber);
+            if (previousTags == null) {
+                if (localTags == null) {
+                    localTags = gitRepo.localTags();
+                    report.increment(ReleaseReport.LOCAL_TAGS_SCANNED, localTags.size());
+                }
+                previousTags = AnnotatedTagFinder.tagsForVersion(repository, localTags, project.getArtifactId(), versionWithoutBuildNumber);
+            } else {
+                report.increment(ReleaseReport.LEDGER_HITS, 1);
+            }
+            previousTagsForEachProject.add(previousTags);
+            report.moduleStepFinished(project.getArtifactId(), ReleaseReport.TAG_LOOKUP, startedAt);
+        }
+        long remoteTagsStartedAt = System.nanoTime();
+        report.increment(ReleaseReport.REMOTE_TAGS_SCANNED, gitRepo.remoteTags().size());
+        report.phaseStepFinished(ReleaseReport.PLANNING, ReleaseReport.REMOTE_TAG_LISTING, remoteTagsStartedAt);
+        if (options.isSinglePassChangeDetection()) {
+            BatchDiffDetector batchDetector = new BatchDiffDetector(repository, detector);
+            for (int i = 0; i < projects.size(); i++) {
+                MavenProject project = projects.get(i);
+                batchDetector.register(calculateModulePath(rootProject, project), project.getModel().getModules(), previousTagsForEachProject.get(i));
+            }
+            detector = batchDetector;
+        }
+        ChangeDetectionCache cache = null;
+        if (options.isChangeDetectionCache()) {
+            try {
+                cache = ChangeDetectionCache.load(repository, options.getChangeDetectionCacheDirectory(), ChangeDetectionCache.DEFAULT_MAX_ENTRIES);
+                detector = new CachingDiffDetector(repository, detector, cache);
+            } catch (IOException e) {
+                log.warn("Could not load the change detection cache so all changes will be detected again: " + e);
+            }
+        }
+
+        ModuleGraph graph = ModuleGraph.fromProjects(projects);
+        List<AnnotatedTag> unchangedSinceTags = null;
+        if (options.getReleaseThreads() > 1) {
+            unchangedSinceTags = detectChangesInParallel(options.getReleaseThreads(), rootProject, projects, previousTagsForEachProject, modulesToForceRelease, detector, report);
+        }
+
+        for (int i = 0; i < projects.size(); i++) {
+            MavenProject project = projects.get(i);
             String relativePathToModule = calculateModulePath(rootProject, project);
             String artifactId = project.getArtifactId();
             String versionWithoutBuildNumber = project.getVersion().replace("-SNAPSHOT", "");
-            List<AnnotatedTag> previousTagsForThisModule = AnnotatedTagFinder.tagsForVersion(gitRepo.git, artifactId, versionWithoutBuildNumber);
+            List<AnnotatedTag> previousTagsForThisModule = previousTagsForEachProject.get(i);
 
 
             Collection<Long> previousBuildNumbers = new ArrayList<Long>();
@@ -44,30 +112,20 @@ public class Reactor {
                 }
             }
 
-            Collection<Long> remoteBuildNumbers = getRemoteBuildNumbers(gitRepo, artifactId, versionWithoutBuildNumber);
-            previousBuildNumbers.addAll(remoteBuildNumbers);
+            Long remoteBuildNumber = gitRepo.remoteTags().maxBuildNumber(artifactId, versionWithoutBuildNumber);
+            if (remoteBuildNumber != null) {
+                previousBuildNumbers.add(remoteBuildNumber);
+            }
 
             VersionName newVersion = versionNamer.name(project.getVersion(), buildNumber, previousBuildNumbers);
 
             boolean oneOfTheDependenciesHasChanged = false;
             String changedDependency = null;
-            for (ReleasableModule module : modules) {
+            for (int upstreamIndex : graph.upstreamOf(i)) {
+                ReleasableModule module = modules.get(upstreamIndex);
                 if (module.willBeReleased()) {
-                    for (Dependency dependency : project.getModel().getDependencies()) {
-                        if (dependency.getGroupId().equals(module.getGroupId()) && dependency.getArtifactId().equals(module.getArtifactId())) {
-                            oneOfTheDependenciesHasChanged = true;
-                            changedDependency = dependency.getArtifactId();
-                            break;
-                        }
-                    }
-                    if (project.getParent() != null
-                            && (project.getParent().getGroupId().equals(module.getGroupId()) && project.getParent().getArtifactId().equals(module.getArtifactId()))) {
-                        oneOfTheDependenciesHasChanged = true;
-                        changedDependency = project.getParent().getArtifactId();
-                        break;
-                    }
-                }
-                if (oneOfTheDependenciesHasChanged) {
+                    oneOfTheDependenciesHasChanged = true;
+                    changedDependency = module.getArtifactId();
                     break;
                 }
             }
@@ -79,7 +137,14 @@ public class Reactor {
             }else if (oneOfTheDependenciesHasChanged) {
                 log.info("Releasing " + artifactId + " " + newVersion.releaseVersion() + " as " + changedDependency + " has changed.");
             } else {
-                AnnotatedTag previousTagThatIsTheSameAsHEADForThisModule = hasChangedSinceLastRelease(previousTagsForThisModule, detector, project, relativePathToModule);
+                AnnotatedTag previousTagThatIsTheSameAsHEADForThisModule;
+                if (unchangedSinceTags == null) {
+                    long startedAt = System.nanoTime();
+                    previousTagThatIsTheSameAsHEADForThisModule = hasChangedSinceLastRelease(previousTagsForThisModule, detector, project, relativePathToModule);
+                    report.moduleStepFinished(artifactId, ReleaseReport.DIFF_WALK, startedAt);
+                } else {
+                    previousTagThatIsTheSameAsHEADForThisModule = unchangedSinceTags.get(i);
+                }
                 if (previousTagThatIsTheSameAsHEADForThisModule != null) {
                     equivalentVersion = previousTagThatIsTheSameAsHEADForThisModule.version() + "." + previousTagThatIsTheSameAsHEADForThisModule.buildNumber();
                     log.info("Will use version " + equivalentVersion + " for " + artifactId + " as it has not been changed since that release.");
@@ -91,6 +156,14 @@ public class Reactor {
             modules.add(module);
         }
 
+        if (cache != null) {
+            try {
+                cache.save();
+            } catch (IOException e) {
+                log.warn("Could not save the change detection cache: " + e);
+            }
+        }
+
         if (!atLeastOneBeingReleased(modules)) {
             switch (actionWhenNoChangesDetected) {
                 case ReleaseNone:
@@ -111,18 +184,12 @@ public class Reactor {
         return new Reactor(modules);
     }
 
-    private static Collection<Long> getRemoteBuildNumbers(LocalGitRepo gitRepo, String artifactId, String versionWithoutBuildNumber) throws GitAPIException {
-        Collection<Ref> remoteTagRefs = gitRepo.allRemoteTags();
-        Collection<Long> remoteBuildNumbers = new ArrayList<Long>();
-        String tagWithoutBuildNumber = artifactId + "-" + versionWithoutBuildNumber;
-        for (Ref remoteTagRef : remoteTagRefs) {
-            String remoteTagName = remoteTagRef.getName();
-            Long buildNumber = AnnotatedTagFinder.buildNumberOf(tagWithoutBuildNumber, remoteTagName);
-            if (buildNumber != null) {
-                remoteBuildNumbers.add(buildNumber);
-            }
+    private static List<AnnotatedTag> latestReleaseFromLedger(ReleaseLedger ledger, String artifactId, String versionWithoutBuildNumber) throws MojoExecutionException {
+        try {
+            return ledger.latestRelease(artifactId, versionWithoutBuildNumber);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Error while reading the release ledger entry for " + artifactId, e);
         }
-        return remoteBuildNumbers;
     }
 
     private static boolean atLeastOneBeingReleased(List<ReleasableModule> modules) {
@@ -151,6 +218,59 @@ public class Reactor {
         return relativePathToModule;
     }
 
+    /**
+     * Finds out whether each module has changed since its last release using a pool of threads. The result for
+     * each project is the same as {@link #hasChangedSinceLastRelease(List, DiffDetector, MavenProject, String)}
+     * would give, or null for modules that are forced to be released. The detectors create their own walks for each
+     * call, so only the repository is shared between the threads.
+     */
+    static List<AnnotatedTag> detectChangesInParallel(int threads, MavenProject rootProject, List<MavenProject> projects, List<List<AnnotatedTag>> previousTagsForEachProject, List<String> modulesToForceRelease, final DiffDetector detector, final ReleaseReport report) throws MojoExecutionException {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            List<ForkJoinTask<AnnotatedTag>> tasks = new ArrayList<ForkJoinTask<AnnotatedTag>>();
+            for (int i = 0; i < projects.size(); i++) {
+                final MavenProject project = projects.get(i);
+                if (modulesToForceRelease != null && modulesToForceRelease.contains(project.getArtifactId())) {
+                    tasks.add(null);
+                    continue;
+                }
+                final List<AnnotatedTag> previousTags = previousTagsForEachProject.get(i);
+                final String relativePathToModule = calculateModulePath(rootProject, project);
+                tasks.add(pool.submit(new Callable<AnnotatedTag>() {
+                    @Override
+                    public AnnotatedTag call() throws MojoExecutionException {
+                        long startedAt = System.nanoTime();
+                        try {
+                            return hasChangedSinceLastRelease(previousTags, detector, project, relativePathToModule);
+                        } finally {
+                            report.moduleStepFinished(project.getArtifactId(), ReleaseReport.DIFF_WALK, startedAt);
+                        }
+                    }
+                }));
+            }
+            List<AnnotatedTag> results = new ArrayList<AnnotatedTag>();
+            for (ForkJoinTask<AnnotatedTag> task : tasks) {
+                results.add(task == null ? null : task.get());
+            }
+            return results;
+        } catch (ExecutionException e) {
+            // the fork join pool wraps checked exceptions from callables in runtime exceptions
+            Throwable cause = e.getCause();
+            while (!(cause instanceof MojoExecutionException) && cause instanceof RuntimeException && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof MojoExecutionException) {
+                throw (MojoExecutionException) cause;
+            }
+            throw new MojoExecutionException("Error while detecting which modules have changed since the last release", cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupted while detecting which modules have changed since the last release", e);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
     static AnnotatedTag hasChangedSinceLastRelease(List<AnnotatedTag> previousTagsForThisModule, DiffDetector detector, MavenProject project, String relativePathToModule) throws MojoExecutionException {
         try {
             if (previousTagsForThisModule.size() == 0) return null;
@@ -172,17 +292,11 @@ public class Reactor {
     }
 
     public ReleasableModule findByLabel(String label) {
-        for (ReleasableModule module : modulesInBuildOrder) {
-            String currentLabel = module.getGroupId() + ":" + module.getArtifactId();
-            if (currentLabel.equals(label)) {
-                return module;
-            }
-        }
-        return null;
+        return modulesByLabel.get(label);
     }
 
     public ReleasableModule find(String groupId, String artifactId, String version) throws UnresolvedSnapshotDependencyException {
-        ReleasableModule value = findByLabel(groupId + ":" + artifactId);
+        ReleasableModule value = findByLabel(ModuleGraph.labelOf(groupId, artifactId));
         if (value == null) {
             throw new UnresolvedSnapshotDependencyException(groupId, artifactId, version);
         }
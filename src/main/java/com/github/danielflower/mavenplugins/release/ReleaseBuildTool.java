@@ -0,0 +1,68 @@
+package com.github.danielflower.mavenplugins.release;
+
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.shared.invoker.DefaultInvoker;
+import org.apache.maven.shared.invoker.Invoker;
+import org.codehaus.plexus.util.Os;
+
+import java.io.File;
+
+/**
+ * The program that runs the release build.
+ */
+public enum ReleaseBuildTool {
+
+    /**
+     * A new Maven process is started for the release build.
+     */
+    Maven,
+
+    /**
+     * The release build is run by the Maven Daemon (mvnd), which keeps warmed up build JVMs running between builds
+     * so the release build does not pay for starting Maven and loading the plugins each time. If mvnd cannot be
+     * found then a new Maven process is used instead.
+     */
+    MavenDaemon;
+
+    static final String MVND_HOME = "MVND_HOME";
+
+    /**
+     * @param mvndExecutable The mvnd executable to use, or null to look for it in <code>MVND_HOME</code> and then on
+     *                       the <code>PATH</code>
+     */
+    Invoker createInvoker(Log log, File mvndExecutable) {
+        DefaultInvoker invoker = new DefaultInvoker();
+        if (this == MavenDaemon) {
+            File executable = mvndExecutable != null ? mvndExecutable : findMvnd(System.getenv(MVND_HOME), System.getenv("PATH"));
+            if (executable != null && executable.isFile()) {
+                log.info("Using the Maven Daemon at " + executable + " for the release build");
+                invoker.setMavenExecutable(executable.getAbsoluteFile());
+            } else {
+                log.warn("Could not find the Maven Daemon " + (executable == null ? "in " + MVND_HOME + " or on the PATH" : "at " + executable)
+                    + " so a new Maven process will be used for the release build");
+            }
+        }
+        return invoker;
+    }
+
+    static File findMvnd(String mvndHome, String path) {
+        String name = Os.isFamily(Os.FAMILY_WINDOWS) ? "mvnd.cmd" : "mvnd";
+        if (mvndHome != null && !mvndHome.isEmpty()) {
+            File candidate = new File(new File(mvndHome, "bin"), name);
+            if (candidate.isFile()) {
+                return candidate;
+            }
+        }
+        if (path != null) {
+            for (String dir : path.split(File.pathSeparator)) {
+                if (!dir.isEmpty()) {
+                    File candidate = new File(dir, name);
+                    if (candidate.isFile()) {
+                        return candidate;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+}
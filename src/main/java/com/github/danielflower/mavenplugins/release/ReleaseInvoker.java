@@ -24,11 +24,15 @@ import org.apache.maven.shared.invoker.MavenInvocationException;
 class ReleaseInvoker {
 	static final String DEPLOY = "deploy";
 	static final String SKIP_TESTS = "-DskipTests=true";
+	static final String BUILDER = "-b";
 	private final Log log;
 	private final MavenProject project;
 	private final InvocationRequest request;
 	private final Invoker invoker;
 	private boolean skipTests;
+	private String threads;
+	private String builder;
+	private boolean buildOnlyReleasedModules;
 	private List<String> goals;
 	private List<String> modulesToRelease;
 	private List<String> releaseProfiles;
@@ -77,6 +81,18 @@ class ReleaseInvoker {
 		this.skipTests = skipTests;
 	}
 
+	final void setBuildOnlyReleasedModules(final boolean buildOnlyReleasedModules) {
+		this.buildOnlyReleasedModules = buildOnlyReleasedModules;
+	}
+
+	final void setThreads(final String threadsOrNull) {
+		threads = threadsOrNull;
+	}
+
+	final void setBuilder(final String builderOrNull) {
+		builder = builderOrNull;
+	}
+
 	final void setGlobalSettings(final File globalSettings) {
 		request.setGlobalSettingsFile(globalSettings);
 	}
@@ -94,12 +110,18 @@ class ReleaseInvoker {
 		if (skipTests) {
 			goals.add(SKIP_TESTS);
 		}
+		if (builder != null && !builder.trim().isEmpty()) {
+			goals.add(BUILDER);
+			goals.add(builder.trim());
+		}
 		request.setGoals(getGoals());
 
 		final List<String> profiles = profilesToActivate();
 		request.setProfiles(profiles);
 
-		request.setAlsoMake(true);
+		// unchanged upstream modules are depended on at their previously released versions, so they only need to
+		// be built along with the released modules when those versions are not resolved from a repository
+		request.setAlsoMake(!buildOnlyReleasedModules);
 		final List<String> changedModules = new ArrayList<String>();
 		final List<String> modulesToRelease = getModulesToRelease();
 		for (final ReleasableModule releasableModule : reactor.getModulesInBuildOrder()) {
@@ -113,9 +135,15 @@ class ReleaseInvoker {
 		}
 		request.setProjects(changedModules);
 
+		final String buildThreads = BuildThreads.resolve(threads, reactor.getModulesInBuildOrder(), changedModules, !buildOnlyReleasedModules);
+		if (buildThreads != null) {
+			request.setThreads(buildThreads);
+		}
+
 		final String profilesInfo = profiles.isEmpty() ? "no profiles activated" : "profiles " + profiles;
+		final String threadsInfo = buildThreads == null ? "" : " on " + buildThreads + " threads";
 
-		log.info(format("About to run mvn %s with %s", goals, profilesInfo));
+		log.info(format("About to run mvn %s with %s%s", goals, profilesInfo, threadsInfo));
 
 		try {
 			final InvocationResult result = invoker.execute(request);
@@ -0,0 +1,226 @@
+package com.github.danielflower.mavenplugins.release;
+
+import org.eclipse.jgit.lib.CommitBuilder;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.TreeFormatter;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevTree;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.TreeWalk;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * A record of the latest release of each module, kept in the Git repository so that the previous release of a module
+ * can be found without listing and parsing every tag.
+ * <p>
+ * The ledger is the commit that {@link #REF} points to. Its tree has one file per artifactId, which holds the version,
+ * build number, tag name and commit of the latest release of that module. Each release adds a commit on top of the
+ * previous one. Entries are only trusted if their tag still exists and the tag for the next build number does not,
+ * and modules without an entry for their current version are looked up from the tags as usual.
+ * </p>
+ * <p>
+ * The ledger must be written on every release. A release that is not recorded makes the entry stale, and only the
+ * tag for the next build number is checked to notice that.
+ * </p>
+ */
+public class ReleaseLedger {
+
+    public static final String REF = "refs/releaser/ledger";
+
+    private static final String VERSION = "version";
+    private static final String BUILD_NUMBER = "buildNumber";
+    private static final String TAG = "tag";
+    private static final String COMMIT = "commit";
+
+    private final Repository repository;
+    private final RevTree tree;
+
+    private ReleaseLedger(Repository repository, RevTree tree) {
+        this.repository = repository;
+        this.tree = tree;
+    }
+
+    /**
+     * @return The ledger at {@link #REF}, which is empty if the ref does not exist
+     */
+    public static ReleaseLedger read(Repository repository) throws IOException {
+        Ref ref = repository.getRefDatabase().exactRef(REF);
+        if (ref == null) {
+            return new ReleaseLedger(repository, null);
+        }
+        RevWalk walk = new RevWalk(repository);
+        try {
+            return new ReleaseLedger(repository, walk.parseCommit(ref.getObjectId()).getTree());
+        } finally {
+            walk.dispose();
+        }
+    }
+
+    /**
+     * @return The latest release of the module if it was for the given version and its tag still exists, otherwise
+     * null, in which case the tags should be searched instead. Null is also returned if the tag for the next build
+     * number exists, as the ledger then missed a later release.
+     */
+    public List<AnnotatedTag> latestRelease(String artifactId, String versionWithoutBuildNumber) throws IOException {
+        Entry entry = entry(artifactId);
+        if (entry == null || !entry.version.equals(versionWithoutBuildNumber)) {
+            return null;
+        }
+        Ref tagRef = repository.getRefDatabase().exactRef(Constants.R_TAGS + entry.tagName);
+        if (tagRef == null) {
+            return null;
+        }
+        String nextTagName = artifactId + "-" + entry.version + "." + (entry.buildNumber + 1);
+        if (repository.getRefDatabase().exactRef(Constants.R_TAGS + nextTagName) != null) {
+            return null;
+        }
+        AnnotatedTag tag = AnnotatedTag.create(entry.tagName, entry.version, entry.buildNumber, true);
+        tag.setRef(tagRef);
+        return Collections.singletonList(tag);
+    }
+
+    /**
+     * @return The entry for the module, read from a single blob, or null if the module has no entry
+     */
+    public Entry entry(String artifactId) throws IOException {
+        if (tree == null) {
+            return null;
+        }
+        ObjectReader reader = repository.newObjectReader();
+        try {
+            TreeWalk treeWalk = TreeWalk.forPath(reader, artifactId, tree);
+            if (treeWalk == null) {
+                return null;
+            }
+            try {
+                return Entry.parse(artifactId, reader.open(treeWalk.getObjectId(0), Constants.OBJ_BLOB).getCachedBytes());
+            } finally {
+                treeWalk.close();
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Adds a commit to the ledger with the given releases, replacing any earlier entries for the same modules.
+     */
+    public static void record(Repository repository, List<Entry> releases) throws IOException {
+        if (releases.isEmpty()) {
+            return;
+        }
+        Ref ref = repository.getRefDatabase().exactRef(REF);
+        ObjectId oldCommit = ref == null ? null : ref.getObjectId();
+
+        Map<String, ObjectId> files = new TreeMap<String, ObjectId>();
+        ObjectInserter inserter = repository.newObjectInserter();
+        try {
+            if (oldCommit != null) {
+                RevWalk walk = new RevWalk(repository);
+                try {
+                    RevCommit commit = walk.parseCommit(oldCommit);
+                    TreeWalk treeWalk = new TreeWalk(walk.getObjectReader());
+                    try {
+                        treeWalk.addTree(commit.getTree());
+                        while (treeWalk.next()) {
+                            files.put(treeWalk.getPathString(), treeWalk.getObjectId(0));
+                        }
+                    } finally {
+                        treeWalk.close();
+                    }
+                } finally {
+                    walk.dispose();
+                }
+            }
+            StringBuilder message = new StringBuilder("Released");
+            for (Entry release : releases) {
+                files.put(release.artifactId, inserter.insert(Constants.OBJ_BLOB, release.toBytes()));
+                message.append(' ').append(release.tagName);
+            }
+
+            TreeFormatter tree = new TreeFormatter();
+            for (Map.Entry<String, ObjectId> file : files.entrySet()) {
+                tree.append(file.getKey(), FileMode.REGULAR_FILE, file.getValue());
+            }
+            PersonIdent ident = new PersonIdent(repository);
+            CommitBuilder commit = new CommitBuilder();
+            commit.setTreeId(inserter.insert(tree));
+            if (oldCommit != null) {
+                commit.setParentId(oldCommit);
+            }
+            commit.setAuthor(ident);
+            commit.setCommitter(ident);
+            commit.setMessage(message.toString());
+            ObjectId newCommit = inserter.insert(commit);
+            inserter.flush();
+
+            RefUpdate update = repository.updateRef(REF);
+            update.setExpectedOldObjectId(oldCommit == null ? ObjectId.zeroId() : oldCommit);
+            update.setNewObjectId(newCommit);
+            update.setRefLogMessage("release ledger updated by the release plugin", false);
+            RefUpdate.Result result = update.update();
+            if (result != RefUpdate.Result.NEW && result != RefUpdate.Result.FAST_FORWARD) {
+                throw new IOException("Could not update " + REF + ": " + result);
+            }
+        } finally {
+            inserter.close();
+        }
+    }
+
+    public static class Entry {
+        public final String artifactId;
+        public final String version;
+        public final long buildNumber;
+        public final String tagName;
+        public final ObjectId commit;
+
+        public Entry(String artifactId, String version, long buildNumber, String tagName, ObjectId commit) {
+            this.artifactId = artifactId;
+            this.version = version;
+            this.buildNumber = buildNumber;
+            this.tagName = tagName;
+            this.commit = commit;
+        }
+
+        static Entry parse(String artifactId, byte[] bytes) throws IOException {
+            Properties properties = new Properties();
+            properties.load(new InputStreamReader(new ByteArrayInputStream(bytes), Constants.CHARSET));
+            String version = properties.getProperty(VERSION);
+            String buildNumber = properties.getProperty(BUILD_NUMBER);
+            String tagName = properties.getProperty(TAG);
+            String commit = properties.getProperty(COMMIT);
+            if (version == null || buildNumber == null || tagName == null || commit == null || !ObjectId.isId(commit)) {
+                return null;
+            }
+            try {
+                return new Entry(artifactId, version, Long.parseLong(buildNumber), tagName, ObjectId.fromString(commit));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        byte[] toBytes() {
+            String text = VERSION + "=" + version + "\n" +
+                BUILD_NUMBER + "=" + buildNumber + "\n" +
+                TAG + "=" + tagName + "\n" +
+                COMMIT + "=" + commit.name() + "\n";
+            return Constants.encode(text);
+        }
+    }
+}
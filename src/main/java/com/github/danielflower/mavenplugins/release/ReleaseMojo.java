@@ -7,14 +7,20 @@ import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.settings.io.DefaultSettingsWriter;
+import org.apache.maven.shared.invoker.DefaultInvocationRequest;
 import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import static java.util.Arrays.asList;
 
@@ -71,6 +77,59 @@ public class ReleaseMojo extends BaseMojo {
      */
     @Parameter(alias = "skipTests", defaultValue = "false", property = "skipTests")
     private boolean skipTests;
+
+    /**
+     * <p>
+     * The number of threads to run the release build with, which is passed to Maven's <code>-T</code> option, such
+     * as <code>4</code> or <code>1C</code> for one thread per core. By default the release build uses one thread.
+     * </p>
+     * <p>
+     * If set to <code>auto</code>, the number of threads is the largest number of modules being built that do not
+     * depend on each other, up to the number of processors.
+     * </p>
+     */
+    @Parameter(alias = "releaseBuildThreads", property = "releaseBuildThreads")
+    private String releaseBuildThreads;
+
+    /**
+     * The Maven builder to run the release build with, which is passed to Maven's <code>-b</code> option, for
+     * example <code>multithreaded</code>. Maven's default builder is used if this is not set.
+     */
+    @Parameter(alias = "releaseBuilder", property = "releaseBuilder")
+    private String releaseBuilder;
+
+    /**
+     * <p>
+     * The program to run the release build with, either <code>Maven</code> to start a new Maven process, which is
+     * the default, or <code>MavenDaemon</code> to use the Maven Daemon (mvnd). The daemon keeps warmed up JVMs
+     * between builds, which saves the time taken to start Maven for each release.
+     * </p>
+     * <p>
+     * mvnd is found from <code>mvndExecutable</code>, the <code>MVND_HOME</code> environment variable or the
+     * <code>PATH</code>, in that order. If it cannot be found then a new Maven process is used.
+     * </p>
+     */
+    @Parameter(alias = "releaseBuildTool", defaultValue = "Maven", property = "releaseBuildTool")
+    private ReleaseBuildTool releaseBuildTool;
+
+    /**
+     * The path to the mvnd executable, when <code>releaseBuildTool</code> is <code>MavenDaemon</code>.
+     */
+    @Parameter(alias = "mvndExecutable", property = "mvndExecutable")
+    private File mvndExecutable;
+
+    /**
+     * <p>
+     * If true then only the modules being released are built. By default, Maven's "also make" option is used so
+     * that any modules that the released modules depend on are built too, even when they have not changed.
+     * </p>
+     * <p>
+     * Unchanged modules are depended on at the version they were last released at, so with this option those
+     * artifacts must be available from a Maven repository, such as the one that releases are deployed to.
+     * </p>
+     */
+    @Parameter(alias = "buildOnlyReleasedModules", defaultValue = "false", property = "buildOnlyReleasedModules")
+    private boolean buildOnlyReleasedModules;
     
 	/**
 	 * Specifies a custom, user specific Maven settings file to be used during the release build.
@@ -97,35 +156,74 @@ public class ReleaseMojo extends BaseMojo {
      */
     @Parameter(alias = "pushTags", defaultValue="true", property="push")
     private boolean pushTags;
+
+    /**
+     * <p>
+     * If true, all the release tags are created together and pushed to the remote in a single atomic push, so
+     * either all of the tags are pushed or none of them are. This is much faster than pushing the tags one at a time
+     * when many modules are released.
+     * </p>
+     * <p>
+     * The remote Git server must support atomic pushes. If it does not, nothing is pushed, the tags are removed from
+     * the local repository again and the release fails.
+     * </p>
+     */
+    @Parameter(alias = "atomicPush", defaultValue = "false", property = "atomicPush")
+    private boolean atomicPush;
     
 
     @Override
     public void execute() throws MojoExecutionException, MojoFailureException {
         Log log = getLog();
+        PlanningOptions options = planningOptions();
+        ReleaseReport report = options.getReport();
+        report.setOutcome("failed");
 
         try {
+            errorIfOfflineAndPushing(pushTags);
+            long startedAt = System.nanoTime();
             configureJsch(log);
+            report.phaseFinished("jschSetup", startedAt);
 
+            startedAt = System.nanoTime();
+            LocalGitRepo repo = configureRemoteTags(LocalGitRepo.fromCurrentDir(getRemoteUrlOrNullIfNoneSet(project.getOriginalModel().getScm(), project.getModel().getScm()), "."));
+            repo.errorIfNotClean(checkUntrackedFiles);
+            report.phaseFinished("cleanCheck", startedAt);
 
-            LocalGitRepo repo = LocalGitRepo.fromCurrentDir(getRemoteUrlOrNullIfNoneSet(project.getOriginalModel().getScm(), project.getModel().getScm()), ".");
-            repo.errorIfNotClean();
-
-            Reactor reactor = Reactor.fromProjects(log, repo, project, projects, buildNumber, modulesToForceRelease, noChangesAction);
+            startedAt = System.nanoTime();
+            Reactor reactor;
+            if (releasePlan == null) {
+                reactor = Reactor.fromProjects(log, repo, project, projects, buildNumber, modulesToForceRelease, noChangesAction, options);
+            } else {
+                log.info("Releasing the plan saved in " + releasePlan);
+                reactor = ReleasePlan.readFrom(releasePlan).toReactor(repo.git.getRepository(), projects, repo);
+            }
+            report.phaseFinished(ReleaseReport.PLANNING, startedAt);
             if (reactor == null) {
+                report.setOutcome("nothing to release");
                 return;
             }
+            report.setPlan(reactor.getModulesInBuildOrder());
 
+            startedAt = System.nanoTime();
             List<AnnotatedTag> proposedTags = figureOutTagNamesAndThrowIfAlreadyExists(reactor.getModulesInBuildOrder(), repo, modulesToRelease);
+            report.phaseFinished("tagValidation", startedAt);
 
-            List<File> changedFiles = updatePomsAndReturnChangedFiles(log, repo, reactor);
+            startedAt = System.nanoTime();
+            List<File> changedFiles = updatePomsAndReturnChangedFiles(log, repo, reactor, report);
+            report.phaseFinished("pomRewrite", startedAt);
 
             // Do this before running the maven build in case the build uploads some artifacts and then fails. If it is
             // not tagged in a half-failed build, then subsequent releases will re-use a version that is already in Nexus
             // and so fail. The downside is that failed builds result in tags being pushed.
-            tagAndPushRepo(log, repo, proposedTags);
+            startedAt = System.nanoTime();
+            tagAndPushRepo(log, repo, reactor, proposedTags);
+            report.increment(ReleaseReport.TAGS_CREATED, proposedTags.size());
+            report.phaseFinished(pushTags ? "tagAndPush" : "tag", startedAt);
 
             try {
-            	final ReleaseInvoker invoker = new ReleaseInvoker(getLog(), project);
+                startedAt = System.nanoTime();
+            	final ReleaseInvoker invoker = new ReleaseInvoker(getLog(), project, new DefaultInvocationRequest(), releaseBuildTool.createInvoker(getLog(), mvndExecutable));
             	invoker.setGlobalSettings(globalSettings);
                 if (userSettings != null) {
                     invoker.setUserSettings(userSettings);
@@ -139,16 +237,29 @@ public class ReleaseMojo extends BaseMojo {
             	invoker.setModulesToRelease(modulesToRelease);
             	invoker.setReleaseProfiles(releaseProfiles);
             	invoker.setSkipTests(skipTests);
+            	invoker.setThreads(releaseBuildThreads);
+            	invoker.setBuilder(releaseBuilder);
+            	invoker.setBuildOnlyReleasedModules(buildOnlyReleasedModules);
                 invoker.runMavenBuild(reactor);
+                report.phaseFinished("build", startedAt);
+
+                startedAt = System.nanoTime();
                 revertChanges(log, repo, changedFiles, true); // throw if you can't revert as that is the root problem
+                report.phaseFinished("revert", startedAt);
+                report.setOutcome("released");
             } finally {
                 revertChanges(log, repo, changedFiles, false); // warn if you can't revert but keep throwing the original exception so the root cause isn't lost
             }
 
 
+        } catch (MojoExecutionException e) {
+            report.setOutcome(e.getMessage());
+            throw e;
         } catch (ValidationException e) {
+            report.setOutcome(e.getMessage());
             printBigErrorMessageAndThrow(log, e.getMessage(), e.getMessages());
         } catch (GitAPIException gae) {
+            report.setOutcome("Could not release due to a Git error: " + gae.getMessage());
 
             StringWriter sw = new StringWriter();
             gae.printStackTrace(new PrintWriter(sw));
@@ -158,16 +269,83 @@ public class ReleaseMojo extends BaseMojo {
                 asList("There was an error while accessing the Git repository. The error returned from git was:",
                     gae.getMessage(), "Stack trace:", exceptionAsString));
         } catch (IOException e) {
+            report.setOutcome(e.getMessage());
             StringWriter sw = new StringWriter();
             e.printStackTrace(new PrintWriter(sw));
             String exceptionAsString = sw.toString();
 
             printBigErrorMessageAndThrow(log, e.getMessage(),
                     asList("There was an error while creating temporary settings file. The error was:", e.getMessage(), "Stack trace:", exceptionAsString));
+        } finally {
+            closeJsch();
+            writeReport(log, report);
+        }
+    }
+
+    private void writeReport(Log log, ReleaseReport report) {
+        File file = new File(project.getBuild().getDirectory(), ReleaseReport.FILE_NAME);
+        try {
+            report.writeTo(file);
+            log.info("Wrote the timings of this release to " + file);
+        } catch (IOException e) {
+            log.warn("Could not write the release report to " + file + ": " + e);
+        }
+    }
+
+    private void tagAndPushRepo(Log log, LocalGitRepo repo, Reactor reactor, List<AnnotatedTag> proposedTags) throws GitAPIException, ValidationException {
+        tagAndPushRepo(log, repo, proposedTags);
+        if (releaseLedger) {
+            recordReleasesInLedger(log, repo, reactor.getModulesInBuildOrder(), proposedTags);
+        }
+    }
+
+    /**
+     * Records the new tags in the release ledger. Failing to do so does not fail the release, as the next release
+     * can still find the previous releases from the tags.
+     */
+    private void recordReleasesInLedger(Log log, LocalGitRepo repo, List<ReleasableModule> modules, List<AnnotatedTag> proposedTags) {
+        Set<String> tagNames = new HashSet<String>();
+        for (AnnotatedTag proposedTag : proposedTags) {
+            tagNames.add(proposedTag.name());
+        }
+        Repository repository = repo.git.getRepository();
+        try {
+            ObjectId head = repository.resolve(Constants.HEAD);
+            List<ReleaseLedger.Entry> releases = new ArrayList<ReleaseLedger.Entry>();
+            for (ReleasableModule module : modules) {
+                if (tagNames.contains(module.getTagName())) {
+                    releases.add(new ReleaseLedger.Entry(module.getArtifactId(), module.getVersion(), module.getBuildNumber(), module.getTagName(), head));
+                }
+            }
+            if (releases.isEmpty()) {
+                return;
+            }
+            if (pushTags) {
+                repo.fetchLedger();
+            }
+            ReleaseLedger.record(repository, releases);
+            if (pushTags) {
+                repo.pushLedger();
+            }
+        } catch (IOException e) {
+            log.warn("Could not update the release ledger: " + e);
+        } catch (GitAPIException e) {
+            log.warn("Could not fetch or push the release ledger: " + e);
         }
     }
 
-    private void tagAndPushRepo(Log log, LocalGitRepo repo, List<AnnotatedTag> proposedTags) throws GitAPIException {
+    private void tagAndPushRepo(Log log, LocalGitRepo repo, List<AnnotatedTag> proposedTags) throws GitAPIException, ValidationException {
+        if (atomicPush) {
+            for (AnnotatedTag proposedTag : proposedTags) {
+                log.info("About to tag the repository with " + proposedTag.name());
+            }
+            if (pushTags) {
+                repo.tagRepoAndPushAtomically(proposedTags);
+            } else {
+                repo.tagRepo(proposedTags);
+            }
+            return;
+        }
         for (AnnotatedTag proposedTag : proposedTags) {
             log.info("About to tag the repository with " + proposedTag.name());
             if (pushTags) {
@@ -206,8 +384,8 @@ public class ReleaseMojo extends BaseMojo {
         }
     }
 
-    private static List<File> updatePomsAndReturnChangedFiles(Log log, LocalGitRepo repo, Reactor reactor) throws MojoExecutionException, ValidationException {
-        PomUpdater pomUpdater = new PomUpdater(log, reactor);
+    private static List<File> updatePomsAndReturnChangedFiles(Log log, LocalGitRepo repo, Reactor reactor, ReleaseReport report) throws MojoExecutionException, ValidationException {
+        PomUpdater pomUpdater = new PomUpdater(log, reactor, report);
         PomUpdater.UpdateResult result = pomUpdater.updateVersion();
         if (!result.success()) {
             log.info("Going to revert changes because there was an error.");
@@ -228,6 +406,15 @@ public class ReleaseMojo extends BaseMojo {
         return result.alteredPoms;
     }
 
+    static ValidationException tagAlreadyExists(String tag) {
+        String summary = "There is already a tag named " + tag + " in this repository.";
+        return new ValidationException(summary, asList(
+            summary,
+            "It is likely that this version has been released before.",
+            "Please try incrementing the build number and trying again."
+        ));
+    }
+
     static List<AnnotatedTag> figureOutTagNamesAndThrowIfAlreadyExists(List<ReleasableModule> modules, LocalGitRepo git, List<String> modulesToRelease) throws GitAPIException, ValidationException {
         List<AnnotatedTag> tags = new ArrayList<AnnotatedTag>();
         for (ReleasableModule module : modules) {
@@ -235,20 +422,14 @@ public class ReleaseMojo extends BaseMojo {
                 continue;
             }
             if (modulesToRelease == null || modulesToRelease.size() == 0 || module.isOneOf(modulesToRelease)) {
-                String tag = module.getTagName();
-                if (git.hasLocalTag(tag)) {
-                    String summary = "There is already a tag named " + tag + " in this repository.";
-                    throw new ValidationException(summary, asList(
-                        summary,
-                        "It is likely that this version has been released before.",
-                        "Please try incrementing the build number and trying again."
-                    ));
-                }
-
-                AnnotatedTag annotatedTag = AnnotatedTag.create(tag, module.getVersion(), module.getBuildNumber(), true);
+                AnnotatedTag annotatedTag = AnnotatedTag.create(module.getTagName(), module.getVersion(), module.getBuildNumber(), true);
                 tags.add(annotatedTag);
             }
         }
+        List<String> matchingLocalTags = git.localTagsFrom(tags);
+        if (matchingLocalTags.size() > 0) {
+            throw tagAlreadyExists(matchingLocalTags.get(0));
+        }
         List<String> matchingRemoteTags = git.remoteTagsFrom(tags);
         if (matchingRemoteTags.size() > 0) {
             String summary = "Cannot release because there is already a tag with the same build number on the remote Git repo.";
@@ -0,0 +1,210 @@
+package com.github.danielflower.mavenplugins.release;
+
+import org.apache.maven.project.MavenProject;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.Repository;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The versions and tags worked out for each module of a release, along with the commit and the pom files they were
+ * worked out from. The <code>next</code> goal can save the plan to a file so that the <code>release</code> goal
+ * releases exactly that plan without working it out again, as long as HEAD and the poms have not changed.
+ */
+public class ReleasePlan {
+
+    private final String head;
+    private final List<Module> modules;
+    private final File file;
+
+    private ReleasePlan(String head, List<Module> modules, File file) {
+        this.head = head;
+        this.modules = modules;
+        this.file = file;
+    }
+
+    public static ReleasePlan fromReactor(Repository repository, Reactor reactor) throws IOException {
+        List<Module> modules = new ArrayList<Module>();
+        for (ReleasableModule module : reactor.getModulesInBuildOrder()) {
+            modules.add(new Module(module.getGroupId(), module.getArtifactId(), module.getRelativePathToModule(),
+                module.getDevelopmentVersion(), module.getVersion(), module.getBuildNumber(),
+                module.willBeReleased() ? null : module.getVersionToDependOn(), module.getTagName(), pomId(module.getProject())));
+        }
+        return new ReleasePlan(headOf(repository), modules, null);
+    }
+
+    /**
+     * Checks that the plan was made for the current HEAD commit and the current pom files of the given projects, and
+     * if so creates the reactor from the plan.
+     *
+     * @throws ValidationException If the plan is out of date or the repository or the poms cannot be read
+     */
+    public Reactor toReactor(Repository repository, List<MavenProject> projects, LocalGitRepo gitRepo) throws ValidationException {
+        try {
+            return checkedReactor(repository, projects, gitRepo);
+        } catch (IOException e) {
+            String plan = file == null ? "the release plan" : "the release plan in " + file;
+            throw new ValidationException("Could not check " + plan + " against the repository", e);
+        }
+    }
+
+    private Reactor checkedReactor(Repository repository, List<MavenProject> projects, LocalGitRepo gitRepo) throws ValidationException, IOException {
+        List<String> problems = new ArrayList<String>();
+        String currentHead = headOf(repository);
+        if (!head.equals(currentHead)) {
+            problems.add("The plan was made at commit " + head + " but HEAD is now " + currentHead);
+        }
+        if (projects.size() != modules.size()) {
+            problems.add("The plan has " + modules.size() + " modules but the reactor has " + projects.size());
+        }
+        List<ReleasableModule> releasableModules = new ArrayList<ReleasableModule>();
+        for (int i = 0; problems.isEmpty() && i < projects.size(); i++) {
+            MavenProject project = projects.get(i);
+            Module module = modules.get(i);
+            if (!module.groupId.equals(project.getGroupId()) || !module.artifactId.equals(project.getArtifactId())) {
+                problems.add("The plan has " + module.groupId + ":" + module.artifactId + " where the reactor has "
+                    + project.getGroupId() + ":" + project.getArtifactId());
+            } else if (!module.pom.equals(pomId(project))) {
+                problems.add("The pom of " + module.artifactId + " has changed since the plan was made");
+            } else {
+                VersionName version = new VersionName(module.developmentVersion, module.version, module.buildNumber);
+                ReleasableModule releasableModule = new ReleasableModule(project, version, module.equivalentVersion, module.path, gitRepo);
+                if (!releasableModule.getTagName().equals(module.tag)) {
+                    problems.add("The plan has the tag " + module.tag + " for " + module.artifactId + " but it would be " + releasableModule.getTagName());
+                }
+                releasableModules.add(releasableModule);
+            }
+        }
+        if (!problems.isEmpty()) {
+            String summary = "The release plan is out of date";
+            problems.add(0, summary);
+            problems.add("Run the next goal again to make a new plan.");
+            throw new ValidationException(summary, problems);
+        }
+        return new Reactor(releasableModules);
+    }
+
+    @SuppressWarnings("unchecked")
+    public JSONObject toJson() {
+        JSONObject json = new JSONObject();
+        json.put("head", head);
+        JSONArray modulesJson = new JSONArray();
+        for (Module module : modules) {
+            JSONObject moduleJson = new JSONObject();
+            moduleJson.put("groupId", module.groupId);
+            moduleJson.put("artifactId", module.artifactId);
+            moduleJson.put("path", module.path);
+            moduleJson.put("developmentVersion", module.developmentVersion);
+            moduleJson.put("version", module.version);
+            moduleJson.put("buildNumber", module.buildNumber);
+            moduleJson.put("equivalentVersion", module.equivalentVersion);
+            moduleJson.put("tag", module.tag);
+            moduleJson.put("pom", module.pom);
+            modulesJson.add(moduleJson);
+        }
+        json.put("modules", modulesJson);
+        return json;
+    }
+
+    public void writeTo(File file) throws IOException {
+        File dir = file.getAbsoluteFile().getParentFile();
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Could not create " + dir);
+        }
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            toJson().writeJSONString(writer);
+        } finally {
+            writer.close();
+        }
+    }
+
+    public static ReleasePlan readFrom(File file) throws ValidationException {
+        try {
+            Reader reader = new InputStreamReader(new FileInputStream(file), "UTF-8");
+            try {
+                JSONObject json = (JSONObject) new JSONParser().parse(reader);
+                List<Module> modules = new ArrayList<Module>();
+                for (Object moduleObject : (JSONArray) json.get("modules")) {
+                    JSONObject moduleJson = (JSONObject) moduleObject;
+                    modules.add(new Module(string(moduleJson, "groupId"), string(moduleJson, "artifactId"), string(moduleJson, "path"),
+                        string(moduleJson, "developmentVersion"), string(moduleJson, "version"), ((Number) moduleJson.get("buildNumber")).longValue(),
+                        (String) moduleJson.get("equivalentVersion"), string(moduleJson, "tag"), string(moduleJson, "pom")));
+                }
+                return new ReleasePlan(string(json, "head"), modules, file);
+            } finally {
+                reader.close();
+            }
+        } catch (IOException e) {
+            throw new ValidationException("Could not read the release plan from " + file, e);
+        } catch (ParseException e) {
+            throw new ValidationException("The release plan in " + file + " is not valid JSON", e);
+        } catch (RuntimeException e) {
+            throw new ValidationException("The release plan in " + file + " is not in the expected format", e);
+        }
+    }
+
+    private static String string(JSONObject json, String key) {
+        Object value = json.get(key);
+        if (!(value instanceof String)) {
+            throw new IllegalArgumentException("Missing " + key);
+        }
+        return (String) value;
+    }
+
+    private static String headOf(Repository repository) throws IOException {
+        ObjectId head = repository.resolve(Constants.HEAD);
+        if (head == null) {
+            throw new IOException("The repository has no commits");
+        }
+        return head.name();
+    }
+
+    /**
+     * @return The Git blob id of the project's pom file, which changes if the contents of the file change
+     */
+    private static String pomId(MavenProject project) throws IOException {
+        byte[] pom = Files.readAllBytes(project.getFile().toPath());
+        return new ObjectInserter.Formatter().idFor(Constants.OBJ_BLOB, pom).name();
+    }
+
+    private static class Module {
+        final String groupId;
+        final String artifactId;
+        final String path;
+        final String developmentVersion;
+        final String version;
+        final long buildNumber;
+        final String equivalentVersion;
+        final String tag;
+        final String pom;
+
+        Module(String groupId, String artifactId, String path, String developmentVersion, String version, long buildNumber, String equivalentVersion, String tag, String pom) {
+            this.groupId = groupId;
+            this.artifactId = artifactId;
+            this.path = path;
+            this.developmentVersion = developmentVersion;
+            this.version = version;
+            this.buildNumber = buildNumber;
+            this.equivalentVersion = equivalentVersion;
+            this.tag = tag;
+            this.pom = pom;
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.github.danielflower.mavenplugins.release;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records how long each phase of a release takes, how long the steps for each module take, some counts of the work
+ * done, and the modules that were planned to be released. This is written as JSON to {@link #FILE_NAME} in the build
+ * directory so that slow releases can be looked into.
+ * <p>
+ * Timings are given to this class as start times from {@link System#nanoTime()}. It is safe to use from several
+ * threads at once.
+ * </p>
+ */
+public class ReleaseReport {
+
+    public static final String FILE_NAME = "releaser-report.json";
+
+    public static final String PLANNING = "planning";
+    public static final String REMOTE_TAG_LISTING = "remoteTagListing";
+
+    public static final String TAG_LOOKUP = "tagLookup";
+    public static final String DIFF_WALK = "diffWalk";
+    public static final String POM_WRITE = "pomWrite";
+
+    public static final String LOCAL_TAGS_SCANNED = "localTagsScanned";
+    public static final String LEDGER_HITS = "ledgerHits";
+    public static final String REMOTE_TAGS_SCANNED = "remoteTagsScanned";
+    public static final String DIFF_WALKS = "diffWalks";
+    public static final String COMMITS_WALKED = "commitsWalked";
+    public static final String POMS_WRITTEN = "pomsWritten";
+    public static final String TAGS_CREATED = "tagsCreated";
+
+    private final long startedAt = System.nanoTime();
+    private final List<Phase> phases = new ArrayList<Phase>();
+    private final Map<String, Map<String, Long>> phaseSteps = new LinkedHashMap<String, Map<String, Long>>();
+    private final Map<String, Map<String, Long>> moduleSteps = new LinkedHashMap<String, Map<String, Long>>();
+    private final Map<String, AtomicLong> counts = new ConcurrentHashMap<String, AtomicLong>();
+    private List<ReleasableModule> plan;
+    private String outcome;
+
+    public synchronized void phaseFinished(String phase, long phaseStartedAt) {
+        phases.add(new Phase(phase, System.nanoTime() - phaseStartedAt));
+    }
+
+    /**
+     * Adds the time since the given start time to a step within a phase, such as listing the remote tags while
+     * planning. Steps are written under their phase, and their times are part of the time of the phase.
+     */
+    public synchronized void phaseStepFinished(String phase, String step, long stepStartedAt) {
+        addStep(phaseSteps, phase, step, System.nanoTime() - stepStartedAt);
+    }
+
+    /**
+     * Adds the time since the given start time to a step of a module. If the step happens more than once for the
+     * module then the times are added together.
+     */
+    public synchronized void moduleStepFinished(String artifactId, String step, long stepStartedAt) {
+        addStep(moduleSteps, artifactId, step, System.nanoTime() - stepStartedAt);
+    }
+
+    private static void addStep(Map<String, Map<String, Long>> stepsByOwner, String owner, String step, long nanos) {
+        Map<String, Long> steps = stepsByOwner.get(owner);
+        if (steps == null) {
+            steps = new LinkedHashMap<String, Long>();
+            stepsByOwner.put(owner, steps);
+        }
+        Long soFar = steps.get(step);
+        steps.put(step, soFar == null ? nanos : soFar + nanos);
+    }
+
+    public void increment(String counter, long amount) {
+        AtomicLong count = counts.get(counter);
+        if (count == null) {
+            counts.putIfAbsent(counter, new AtomicLong());
+            count = counts.get(counter);
+        }
+        count.addAndGet(amount);
+    }
+
+    public long count(String counter) {
+        AtomicLong count = counts.get(counter);
+        return count == null ? 0 : count.get();
+    }
+
+    public synchronized void setPlan(List<ReleasableModule> modulesInBuildOrder) {
+        this.plan = modulesInBuildOrder;
+    }
+
+    /**
+     * @param outcome A short description of how the release ended, such as "released" or the error message
+     */
+    public synchronized void setOutcome(String outcome) {
+        this.outcome = outcome;
+    }
+
+    @SuppressWarnings("unchecked")
+    public synchronized JSONObject toJson() {
+        JSONObject json = new JSONObject();
+        json.put("outcome", outcome);
+        json.put("totalMillis", millis(System.nanoTime() - startedAt));
+
+        JSONArray phasesJson = new JSONArray();
+        for (Phase phase : phases) {
+            JSONObject phaseJson = new JSONObject();
+            phaseJson.put("name", phase.name);
+            phaseJson.put("millis", millis(phase.nanos));
+            Map<String, Long> steps = phaseSteps.get(phase.name);
+            if (steps != null) {
+                phaseJson.put("steps", stepsToJson(steps));
+            }
+            phasesJson.add(phaseJson);
+        }
+        json.put("phases", phasesJson);
+
+        JSONObject modulesJson = new JSONObject();
+        for (Map.Entry<String, Map<String, Long>> module : moduleSteps.entrySet()) {
+            modulesJson.put(module.getKey(), stepsToJson(module.getValue()));
+        }
+        json.put("modules", modulesJson);
+
+        JSONObject countsJson = new JSONObject();
+        for (Map.Entry<String, AtomicLong> count : new TreeMap<String, AtomicLong>(counts).entrySet()) {
+            countsJson.put(count.getKey(), count.getValue().get());
+        }
+        json.put("counts", countsJson);
+
+        JSONArray planJson = new JSONArray();
+        if (plan != null) {
+            for (ReleasableModule module : plan) {
+                JSONObject moduleJson = new JSONObject();
+                moduleJson.put("groupId", module.getGroupId());
+                moduleJson.put("artifactId", module.getArtifactId());
+                moduleJson.put("path", module.getRelativePathToModule());
+                moduleJson.put("release", module.willBeReleased());
+                moduleJson.put("version", module.getVersionToDependOn());
+                if (module.willBeReleased()) {
+                    moduleJson.put("tag", module.getTagName());
+                }
+                planJson.add(moduleJson);
+            }
+        }
+        json.put("plan", planJson);
+        return json;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static JSONObject stepsToJson(Map<String, Long> steps) {
+        JSONObject stepsJson = new JSONObject();
+        for (Map.Entry<String, Long> step : steps.entrySet()) {
+            stepsJson.put(step.getKey() + "Millis", millis(step.getValue()));
+        }
+        return stepsJson;
+    }
+
+    public void writeTo(File file) throws IOException {
+        File dir = file.getParentFile();
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Could not create " + dir);
+        }
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            toJson().writeJSONString(writer);
+        } finally {
+            writer.close();
+        }
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 1000.0) / 1000.0;
+    }
+
+    private static class Phase {
+        final String name;
+        final long nanos;
+
+        Phase(String name, long nanos) {
+            this.name = name;
+            this.nanos = nanos;
+        }
+    }
+}
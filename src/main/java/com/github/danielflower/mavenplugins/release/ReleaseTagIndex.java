@@ -0,0 +1,122 @@
+package com.github.danielflower.mavenplugins.release;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An index of the tags in a repository, built from a single enumeration of the tag refs. Release tags
+ * (named like "artifactId-version.buildNumber") are grouped by their "artifactId-version" prefix so that
+ * finding the previous releases of a module does not require scanning every tag again. The greatest build
+ * number for each prefix is also kept, so that the next build number can be found without parsing any tag names.
+ */
+public class ReleaseTagIndex {
+
+    private final Map<String, Ref> tagsByName = new HashMap<String, Ref>();
+    private final Map<String, List<Ref>> tagsByVersion = new HashMap<String, List<Ref>>();
+    private final Map<String, MaxBuildNumber> maxBuildNumbers = new HashMap<String, MaxBuildNumber>();
+    private Ref lastTag;
+
+    private ReleaseTagIndex() {
+    }
+
+    public static ReleaseTagIndex fromRepository(Repository repository) throws IOException {
+        return fromRefs(repository.getRefDatabase().getRefs(Constants.R_TAGS).values());
+    }
+
+    public static ReleaseTagIndex fromRefs(Collection<Ref> refs) {
+        ReleaseTagIndex index = new ReleaseTagIndex();
+        List<Ref> newestFirst = new ArrayList<Ref>(refs);
+        Collections.reverse(newestFirst);
+        for (Ref ref : newestFirst) {
+            index.add(ref);
+        }
+        return index;
+    }
+
+    /**
+     * Adds a tag to the index, for example after the repository has been tagged.
+     */
+    void add(Ref ref) {
+        String tagName = AnnotatedTag.stripRefPrefix(ref.getName());
+        tagsByName.put(tagName, ref);
+        if (lastTag == null || ref.getName().compareTo(lastTag.getName()) > 0) {
+            lastTag = ref;
+        }
+        int lastDot = tagName.lastIndexOf('.');
+        if (lastDot <= 0) {
+            return;
+        }
+        long buildNumber;
+        try {
+            buildNumber = Long.parseLong(tagName.substring(lastDot + 1));
+        } catch (NumberFormatException e) {
+            return;
+        }
+        String versionWithoutBuildNumber = tagName.substring(0, lastDot);
+        List<Ref> refs = tagsByVersion.get(versionWithoutBuildNumber);
+        if (refs == null) {
+            refs = new ArrayList<Ref>();
+            tagsByVersion.put(versionWithoutBuildNumber, refs);
+        }
+        refs.add(ref);
+        MaxBuildNumber max = maxBuildNumbers.get(versionWithoutBuildNumber);
+        if (max == null) {
+            maxBuildNumbers.put(versionWithoutBuildNumber, new MaxBuildNumber(buildNumber));
+        } else if (buildNumber > max.value) {
+            max.value = buildNumber;
+        }
+    }
+
+    /**
+     * @return The tags named like "artifactId-versionWithoutBuildNumber.buildNumber", or an empty list if there are none.
+     */
+    public List<Ref> tagsForVersion(String artifactId, String versionWithoutBuildNumber) {
+        List<Ref> refs = tagsByVersion.get(artifactId + "-" + versionWithoutBuildNumber);
+        return refs == null ? Collections.<Ref>emptyList() : Collections.unmodifiableList(refs);
+    }
+
+    /**
+     * @return The greatest build number of the tags named like "artifactId-versionWithoutBuildNumber.buildNumber",
+     * or null if there are none.
+     */
+    public Long maxBuildNumber(String artifactId, String versionWithoutBuildNumber) {
+        MaxBuildNumber max = maxBuildNumbers.get(artifactId + "-" + versionWithoutBuildNumber);
+        return max == null ? null : max.value;
+    }
+
+    public boolean hasTag(String tagName) {
+        return tagsByName.containsKey(tagName);
+    }
+
+    public Ref tag(String tagName) {
+        return tagsByName.get(tagName);
+    }
+
+    /**
+     * @return The tag with the greatest name, or null if there are no tags.
+     */
+    public Ref lastTag() {
+        return lastTag;
+    }
+
+    public int size() {
+        return tagsByName.size();
+    }
+
+    private static class MaxBuildNumber {
+        long value;
+
+        MaxBuildNumber(long value) {
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.github.danielflower.mavenplugins.release;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectIdRef;
+import org.eclipse.jgit.lib.Ref;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Saves the tags listed from a remote to a gzipped file, and reads them back for planning a release offline.
+ * Each line has the tag's object id, the id of the commit it points to (or <code>-</code> if that is not known) and
+ * the ref name.
+ */
+class RemoteTagSnapshot {
+
+    private static final String NOT_PEELED = "-";
+
+    private RemoteTagSnapshot() {
+    }
+
+    static void write(File file, Collection<Ref> tags) throws IOException {
+        File dir = file.getParentFile();
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Could not create " + dir);
+        }
+        File temp = new File(dir, file.getName() + ".tmp");
+        Writer writer = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(new FileOutputStream(temp)), Constants.CHARSET));
+        try {
+            for (Ref tag : tags) {
+                if (tag.getObjectId() == null) {
+                    continue;
+                }
+                ObjectId peeled = tag.getPeeledObjectId();
+                writer.write(tag.getObjectId().name());
+                writer.write(' ');
+                writer.write(peeled == null ? NOT_PEELED : peeled.name());
+                writer.write(' ');
+                writer.write(tag.getName());
+                writer.write('\n');
+            }
+        } finally {
+            writer.close();
+        }
+        if (file.exists() && !file.delete()) {
+            throw new IOException("Could not replace " + file);
+        }
+        if (!temp.renameTo(file)) {
+            throw new IOException("Could not rename " + temp + " to " + file);
+        }
+    }
+
+    static List<Ref> read(File file) throws IOException {
+        List<Ref> tags = new ArrayList<Ref>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(new FileInputStream(file)), Constants.CHARSET));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split(" ", 3);
+                if (parts.length != 3 || !ObjectId.isId(parts[0]) || !parts[2].startsWith(Constants.R_TAGS)) {
+                    throw new IOException("Unexpected line in " + file + ": " + line);
+                }
+                ObjectId id = ObjectId.fromString(parts[0]);
+                if (NOT_PEELED.equals(parts[1])) {
+                    tags.add(new ObjectIdRef.Unpeeled(Ref.Storage.NETWORK, parts[2], id));
+                } else if (ObjectId.isId(parts[1])) {
+                    tags.add(new ObjectIdRef.PeeledTag(Ref.Storage.NETWORK, parts[2], id, ObjectId.fromString(parts[1])));
+                } else {
+                    throw new IOException("Unexpected line in " + file + ": " + line);
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return tags;
+    }
+}
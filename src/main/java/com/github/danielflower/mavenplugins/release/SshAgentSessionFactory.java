@@ -2,9 +2,19 @@ package com.github.danielflower.mavenplugins.release;
 
 import static java.lang.String.format;
 
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
 import org.apache.maven.plugin.logging.Log;
+import org.eclipse.jgit.errors.TransportException;
+import org.eclipse.jgit.transport.CredentialsProvider;
 import org.eclipse.jgit.transport.JschConfigSessionFactory;
 import org.eclipse.jgit.transport.OpenSshConfig;
+import org.eclipse.jgit.transport.RemoteSession;
+import org.eclipse.jgit.transport.URIish;
 import org.eclipse.jgit.util.FS;
 
 import com.jcraft.jsch.IdentityRepository;
@@ -22,15 +32,27 @@ import com.jcraft.jsch.agentproxy.usocket.NCUSocketFactory;
  * SSH-Agent enabler.
  *
  * A JschConfigSessionFactory which sets the Preferred authentication method to
- * Publickey, and tries to use a NetCat Socket Factory to reach a ssh-agent
- * process via it's Unix Socket as identified by environment var SSH_AUTH_SOCK.
+ * Publickey, and tries to reach a ssh-agent process via it's Unix Socket as
+ * identified by environment var SSH_AUTH_SOCK. On Java 16 and later the socket
+ * is opened directly, otherwise a NetCat Socket Factory is used.
+ *
+ * Note that before Java 16 this requires the 'nc' binary installed and available on PATH!
  *
- * Note that this requires the 'nc' binary installed and available on PATH!
+ * Authenticated sessions are kept when JGit releases them, and are reused by
+ * later connections to the same user, host and port, so that listing the remote
+ * tags and pushing each tag do not each need a new connection and key exchange.
+ * The kept sessions are disconnected by {@link #closeSessions()}.
  *
  * @author Johan Ström johan@pistonlabs.com
  */
 public class SshAgentSessionFactory extends JschConfigSessionFactory {
+	static final int MAX_IDLE_SESSIONS_PER_HOST = 4;
+	static final int SERVER_ALIVE_INTERVAL_MILLIS = 30000;
+
 	private final Log log;
+	private final Map<String, Deque<PooledSession>> idleSessions = new HashMap<String, Deque<PooledSession>>();
+	private Session lastCreatedSession;
+	private boolean closed;
 	private String knownHostsOrNull;
 	private String identityFile;
 	private String passphraseOrNull;
@@ -71,14 +93,112 @@ public class SshAgentSessionFactory extends JschConfigSessionFactory {
 	protected void configure(final OpenSshConfig.Host host, final Session sn) {
 	}
 
+	@Override
+	protected Session createSession(final OpenSshConfig.Host hc, final String user, final String host, final int port,
+			final FS fs) throws JSchException {
+		final Session session = super.createSession(hc, user, host, port, fs);
+		// keeps idle pooled sessions open while the release build runs
+		session.setServerAliveInterval(SERVER_ALIVE_INTERVAL_MILLIS);
+		lastCreatedSession = session;
+		return session;
+	}
+
+	@Override
+	public synchronized RemoteSession getSession(final URIish uri, final CredentialsProvider credentialsProvider,
+			final FS fs, final int tms) throws TransportException {
+		final String key = poolKey(uri);
+		final Deque<PooledSession> idle = idleSessions.get(key);
+		while (idle != null && !idle.isEmpty()) {
+			final PooledSession pooled = idle.pop();
+			if (pooled.session.isConnected()) {
+				log.debug(format("Reusing SSH session to %s", key));
+				return pooled;
+			}
+			pooled.delegate.disconnect();
+		}
+		lastCreatedSession = null;
+		final RemoteSession remoteSession = super.getSession(uri, credentialsProvider, fs, tms);
+		if (lastCreatedSession == null) {
+			return remoteSession;
+		}
+		return new PooledSession(key, remoteSession, lastCreatedSession);
+	}
+
+	@Override
+	public synchronized void releaseSession(final RemoteSession session) {
+		if (session instanceof PooledSession && !closed) {
+			final PooledSession pooled = (PooledSession) session;
+			Deque<PooledSession> idle = idleSessions.get(pooled.key);
+			if (idle == null) {
+				idle = new ArrayDeque<PooledSession>();
+				idleSessions.put(pooled.key, idle);
+			}
+			if (pooled.session.isConnected() && idle.size() < MAX_IDLE_SESSIONS_PER_HOST) {
+				idle.push(pooled);
+				return;
+			}
+		}
+		session.disconnect();
+	}
+
+	/**
+	 * Disconnects the idle sessions. Sessions that are in use are disconnected
+	 * when they are released.
+	 */
+	public synchronized void closeSessions() {
+		closed = true;
+		for (final Deque<PooledSession> idle : idleSessions.values()) {
+			for (final PooledSession pooled : idle) {
+				pooled.delegate.disconnect();
+			}
+		}
+		idleSessions.clear();
+	}
+
+	static String poolKey(final URIish uri) {
+		return uri.getUser() + "@" + uri.getHost() + ":" + uri.getPort();
+	}
+
+	static class PooledSession implements RemoteSession {
+		final String key;
+		final RemoteSession delegate;
+		final Session session;
+
+		PooledSession(final String key, final RemoteSession delegate, final Session session) {
+			this.key = key;
+			this.delegate = delegate;
+			this.session = session;
+		}
+
+		@Override
+		public Process exec(final String commandName, final int timeout) throws IOException {
+			return delegate.exec(commandName, timeout);
+		}
+
+		@Override
+		public void disconnect() {
+			delegate.disconnect();
+		}
+	}
+
+	/**
+	 * Connects to the agent's socket directly when the JDK supports Unix domain
+	 * sockets, and otherwise through an 'nc' process for each connection.
+	 */
+	static USocketFactory agentSocketFactory() throws AgentProxyException {
+		if (UnixDomainSocketFactory.isAvailable()) {
+			return new UnixDomainSocketFactory();
+		}
+		return new NCUSocketFactory();
+	}
+
 	@Override
 	protected JSch createDefaultJSch(final FS fs) throws JSchException {
 		Connector con = null;
 		try {
 			// TODO: add support for others as well, such as page-ant.
 			if (SSHAgentConnector.isConnectorAvailable()) {
-				final USocketFactory usf = new NCUSocketFactory();
-				con = new SSHAgentConnector(usf);
+				con = new SSHAgentConnector(agentSocketFactory());
 			}
 		} catch (final AgentProxyException e) {
 			log.warn("Failed to connect to SSH-agent", e);
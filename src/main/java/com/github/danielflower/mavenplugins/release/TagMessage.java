@@ -0,0 +1,210 @@
+package com.github.danielflower.mavenplugins.release;
+
+/**
+ * Reads the version and build number from the JSON message of a release tag, such as
+ * <code>{"version":"1.0","buildNumber":"3"}</code>, without building a map of the whole message.
+ * <p>
+ * Other fields are skipped over. String values are unescaped, and other values are given as they appear in the
+ * message, so the results are the same as reading the message with json-simple and calling
+ * <code>String.valueOf</code> on the values.
+ * </p>
+ */
+class TagMessage {
+
+    final String version;
+    final String buildNumber;
+
+    private TagMessage(String version, String buildNumber) {
+        this.version = version;
+        this.buildNumber = buildNumber;
+    }
+
+    /**
+     * @return The values of the version and build number fields, which are null if the fields are missing or are
+     * JSON nulls, or null if the message is not a JSON object
+     */
+    static TagMessage parse(String message) {
+        try {
+            return new Parser(message).parseObject();
+        } catch (NotJson e) {
+            return null;
+        }
+    }
+
+    private static class NotJson extends Exception {
+        NotJson() {
+            super(null, null, false, false);
+        }
+    }
+
+    private static class Parser {
+        private final String json;
+        private int pos = 0;
+
+        Parser(String json) {
+            this.json = json;
+        }
+
+        TagMessage parseObject() throws NotJson {
+            String version = null;
+            String buildNumber = null;
+            skipWhitespace();
+            expect('{');
+            skipWhitespace();
+            if (peek() == '}') {
+                pos++;
+            } else {
+                while (true) {
+                    skipWhitespace();
+                    String key = readString();
+                    skipWhitespace();
+                    expect(':');
+                    skipWhitespace();
+                    if (AnnotatedTag.VERSION.equals(key)) {
+                        version = readValue();
+                    } else if (AnnotatedTag.BUILD_NUMBER.equals(key)) {
+                        buildNumber = readValue();
+                    } else {
+                        skipValue();
+                    }
+                    skipWhitespace();
+                    char c = next();
+                    if (c == '}') {
+                        break;
+                    }
+                    if (c != ',') {
+                        throw new NotJson();
+                    }
+                }
+            }
+            skipWhitespace();
+            if (pos != json.length()) {
+                throw new NotJson();
+            }
+            return new TagMessage(version, buildNumber);
+        }
+
+        /**
+         * @return The value as text, or null for a JSON null
+         */
+        private String readValue() throws NotJson {
+            if (peek() == '"') {
+                return readString();
+            }
+            int start = pos;
+            skipValue();
+            String value = json.substring(start, pos);
+            return "null".equals(value) ? null : value;
+        }
+
+        private void skipValue() throws NotJson {
+            char c = peek();
+            if (c == '"') {
+                readString();
+            } else if (c == '{' || c == '[') {
+                char close = c == '{' ? '}' : ']';
+                pos++;
+                skipWhitespace();
+                if (peek() == close) {
+                    pos++;
+                    return;
+                }
+                while (true) {
+                    skipWhitespace();
+                    if (c == '{') {
+                        readString();
+                        skipWhitespace();
+                        expect(':');
+                        skipWhitespace();
+                    }
+                    skipValue();
+                    skipWhitespace();
+                    char next = next();
+                    if (next == close) {
+                        return;
+                    }
+                    if (next != ',') {
+                        throw new NotJson();
+                    }
+                }
+            } else {
+                int start = pos;
+                while (pos < json.length() && "{}[],: \t\r\n\"".indexOf(json.charAt(pos)) < 0) {
+                    pos++;
+                }
+                if (pos == start) {
+                    throw new NotJson();
+                }
+            }
+        }
+
+        private String readString() throws NotJson {
+            expect('"');
+            int start = pos;
+            int end = json.indexOf('"', start);
+            if (end < 0) {
+                throw new NotJson();
+            }
+            if (json.lastIndexOf('\\', end) < start) {
+                pos = end + 1;
+                return json.substring(start, end);
+            }
+            StringBuilder value = new StringBuilder();
+            while (true) {
+                char c = next();
+                if (c == '"') {
+                    return value.toString();
+                }
+                if (c != '\\') {
+                    value.append(c);
+                    continue;
+                }
+                char escaped = next();
+                switch (escaped) {
+                    case 'b': value.append('\b'); break;
+                    case 'f': value.append('\f'); break;
+                    case 'n': value.append('\n'); break;
+                    case 'r': value.append('\r'); break;
+                    case 't': value.append('\t'); break;
+                    case 'u':
+                        if (pos + 4 > json.length()) {
+                            throw new NotJson();
+                        }
+                        try {
+                            value.append((char) Integer.parseInt(json.substring(pos, pos + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw new NotJson();
+                        }
+                        pos += 4;
+                        break;
+                    default: value.append(escaped);
+                }
+            }
+        }
+
+        private void skipWhitespace() {
+            while (pos < json.length() && Character.isWhitespace(json.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        private void expect(char expected) throws NotJson {
+            if (next() != expected) {
+                throw new NotJson();
+            }
+        }
+
+        private char peek() throws NotJson {
+            if (pos >= json.length()) {
+                throw new NotJson();
+            }
+            return json.charAt(pos);
+        }
+
+        private char next() throws NotJson {
+            char c = peek();
+            pos++;
+            return c;
+        }
+    }
+}
@@ -1,9 +1,13 @@
 package com.github.danielflower.mavenplugins.release;
 
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.FileMode;
 import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.TreeWalk;
 import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
 import org.eclipse.jgit.treewalk.filter.PathFilter;
 import org.eclipse.jgit.treewalk.filter.TreeFilter;
@@ -16,24 +20,72 @@ import java.util.List;
 public class TreeWalkingDiffDetector implements DiffDetector {
 
     private final Repository repo;
+    private final ReleaseReport report;
 
     public TreeWalkingDiffDetector(Repository repo) {
+        this(repo, new ReleaseReport());
+    }
+
+    public TreeWalkingDiffDetector(Repository repo, ReleaseReport report) {
         this.repo = repo;
+        this.report = report;
     }
 
     public boolean hasChangedSince(String modulePath, java.util.List<String> childModules, Collection<AnnotatedTag> tags) throws IOException {
-        RevWalk walk = new RevWalk(repo);
+        CountingRevWalk walk = new CountingRevWalk(repo);
+        report.increment(ReleaseReport.DIFF_WALKS, 1);
         try {
             walk.setRetainBody(false);
-            walk.markStart(walk.parseCommit(repo.getRef("HEAD").getObjectId()));
+            RevCommit head = walk.parseCommit(repo.getRef("HEAD").getObjectId());
+            if (childModules.isEmpty() && hasSameTreeAsOneOfTheTags(modulePath, head, tags, walk)) {
+                return false;
+            }
+            walk.markStart(head);
             filterOutOtherModulesChanges(modulePath, childModules, walk);
             stopWalkingWhenTheTagsAreHit(tags, walk);
             return walk.iterator().hasNext();
         } finally {
+            report.increment(ReleaseReport.COMMITS_WALKED, walk.commitsLoaded);
             walk.dispose();
         }
     }
 
+    /**
+     * A quick check for modules without child modules: if the module's directory has exactly the same tree
+     * at HEAD as at one of the tagged commits then the module has not changed, and there is no need to walk
+     * the history between them. If the trees differ, the history still needs to be walked as the tag may not
+     * be an ancestor of HEAD.
+     */
+    private static boolean hasSameTreeAsOneOfTheTags(String modulePath, RevCommit head, Collection<AnnotatedTag> tags, RevWalk walk) throws IOException {
+        ObjectReader reader = walk.getObjectReader();
+        ObjectId treeAtHead = treeOfModule(modulePath, head, reader);
+        if (treeAtHead == null) {
+            return false;
+        }
+        for (AnnotatedTag tag : tags) {
+            RevCommit taggedCommit = walk.parseCommit(tag.ref().getTarget().getObjectId());
+            if (treeAtHead.equals(treeOfModule(modulePath, taggedCommit, reader))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static ObjectId treeOfModule(String modulePath, RevCommit commit, ObjectReader reader) throws IOException {
+        if (".".equals(modulePath)) {
+            return commit.getTree();
+        }
+        TreeWalk treeWalk = TreeWalk.forPath(reader, modulePath, commit.getTree());
+        if (treeWalk == null) {
+            return null;
+        }
+        try {
+            return FileMode.TREE.equals(treeWalk.getFileMode(0)) ? treeWalk.getObjectId(0) : null;
+        } finally {
+            treeWalk.close();
+        }
+    }
+
     private static void stopWalkingWhenTheTagsAreHit(Collection<AnnotatedTag> tags, RevWalk walk) throws IOException {
         for (AnnotatedTag tag : tags) {
             ObjectId commitId = tag.ref().getTarget().getObjectId();
@@ -63,4 +115,21 @@ public class TreeWalkingDiffDetector implements DiffDetector {
         TreeFilter treeFilter = treeFilters.size() == 1 ? treeFilters.get(0) : AndTreeFilter.create(treeFilters);
         walk.setTreeFilter(treeFilter);
     }
+
+    /**
+     * Counts the commits that the walk loads, including the ones it passes over because of the tree filter.
+     */
+    private static class CountingRevWalk extends RevWalk {
+        int commitsLoaded = 0;
+
+        CountingRevWalk(Repository repo) {
+            super(repo);
+        }
+
+        @Override
+        protected RevCommit createCommit(AnyObjectId id) {
+            commitsLoaded++;
+            return super.createCommit(id);
+        }
+    }
 }
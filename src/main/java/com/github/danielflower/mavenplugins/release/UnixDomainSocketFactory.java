@@ -0,0 +1,106 @@
+package com.github.danielflower.mavenplugins.release;
+
+import com.jcraft.jsch.agentproxy.USocketFactory;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.ProtocolFamily;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Connects to Unix domain sockets, such as the ssh-agent socket, with the socket channels that the JDK supports from
+ * Java 16. Unlike {@link com.jcraft.jsch.agentproxy.usocket.NCUSocketFactory}, this does not start an
+ * <code>nc</code> process for each connection.
+ * <p>
+ * The plugin is compiled for Java 8, so the Java 16 classes are found by reflection.
+ * {@link #isAvailable()} is false on earlier JDKs.
+ * </p>
+ */
+class UnixDomainSocketFactory implements USocketFactory {
+
+    private static final ProtocolFamily UNIX;
+    private static final Method OPEN_CHANNEL;
+    private static final Method ADDRESS_OF;
+
+    static {
+        ProtocolFamily unix = null;
+        Method openChannel = null;
+        Method addressOf = null;
+        try {
+            unix = Enum.valueOf(StandardProtocolFamily.class, "UNIX");
+            openChannel = SocketChannel.class.getMethod("open", ProtocolFamily.class);
+            addressOf = Class.forName("java.net.UnixDomainSocketAddress").getMethod("of", String.class);
+        } catch (Exception e) {
+            unix = null;
+        }
+        UNIX = unix;
+        OPEN_CHANNEL = openChannel;
+        ADDRESS_OF = addressOf;
+    }
+
+    static boolean isAvailable() {
+        return UNIX != null;
+    }
+
+    @Override
+    public Socket open(String path) throws IOException {
+        if (!isAvailable()) {
+            throw new IOException("Unix domain sockets need Java 16 or later");
+        }
+        SocketChannel channel;
+        try {
+            channel = (SocketChannel) OPEN_CHANNEL.invoke(null, UNIX);
+        } catch (IllegalAccessException e) {
+            throw new IOException("Could not open a Unix domain socket", e);
+        } catch (InvocationTargetException e) {
+            throw new IOException("Could not open a Unix domain socket", e.getCause());
+        }
+        try {
+            channel.connect((SocketAddress) ADDRESS_OF.invoke(null, path));
+        } catch (Exception e) {
+            channel.close();
+            if (e instanceof IOException) {
+                throw (IOException) e;
+            }
+            throw new IOException("Could not connect to " + path, e instanceof InvocationTargetException ? e.getCause() : e);
+        }
+        return new ChannelSocket(channel);
+    }
+
+    private static class ChannelSocket extends Socket {
+        private final SocketChannel channel;
+
+        ChannelSocket(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public int readFull(byte[] buf, int s, int len) throws IOException {
+            // the agent connector treats any non-negative count as a complete read, so a short read is an EOF
+            ByteBuffer buffer = ByteBuffer.wrap(buf, s, len);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    return -1;
+                }
+            }
+            return len;
+        }
+
+        @Override
+        public void write(byte[] buf, int s, int len) throws IOException {
+            ByteBuffer buffer = ByteBuffer.wrap(buf, s, len);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -6,9 +6,12 @@ import org.junit.Test;
 import scaffolding.TestProject;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
 
 public class AnnotatedTagTest {
     @Test
@@ -45,4 +48,20 @@ public class AnnotatedTagTest {
         assertThat(inflatedTag.buildNumber(), equalTo(0L));
     }
 
+    @Test
+    public void manyTagsCanBeLoadedWithOneReaderSkippingLightweightTags() throws Exception {
+        TestProject project = TestProject.singleModuleProject();
+        AnnotatedTag.create("my-name-1.0.1", "1.0", 1, true).saveAtHEAD(project.local);
+        project.local.tag().setName("my-name-1.0.2").setAnnotated(false).call();
+        AnnotatedTag.create("my-name-1.0.3", "1.0", 3, true).saveAtHEAD(project.local);
+
+        ReleaseTagIndex index = ReleaseTagIndex.fromRepository(project.local.getRepository());
+        List<AnnotatedTag> tags = AnnotatedTagFinder.load(project.local.getRepository(), index.tagsForVersion("my-name", "1.0"));
+        List<Long> buildNumbers = new ArrayList<Long>();
+        for (AnnotatedTag tag : tags) {
+            buildNumbers.add(tag.buildNumber());
+        }
+        assertThat(buildNumbers, containsInAnyOrder(1L, 3L));
+    }
+
 }
@@ -0,0 +1,90 @@
+package com.github.danielflower.mavenplugins.release;
+
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.junit.Test;
+import scaffolding.TestProject;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static com.github.danielflower.mavenplugins.release.AnnotatedTagFinderTest.saveFileInModule;
+import static java.util.Arrays.asList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class BatchDiffDetectorTest {
+
+    @Test
+    public void canDetectIfFilesHaveBeenChangedForManyModulesInOneGo() throws Exception {
+        TestProject project = TestProject.independentVersionsProject();
+
+        AnnotatedTag tag1 = saveFileInModule(project, "console-app", "1.2", 3);
+        AnnotatedTag tag2 = saveFileInModule(project, "core-utils", "2", 0);
+        AnnotatedTag tag3 = saveFileInModule(project, "console-app", "1.2", 4);
+
+        BatchDiffDetector detector = new BatchDiffDetector(project.local.getRepository(), new NotRegistered());
+        detector.register("core-utils", noChildModules(), asList(tag2));
+        detector.register("console-app", noChildModules(), asList(tag1));
+        detector.register(".", asList("console-app", "core-utils"), asList(tag3));
+
+        assertThat(detector.hasChangedSince("core-utils", noChildModules(), asList(tag2)), is(false));
+        assertThat(detector.hasChangedSince("console-app", noChildModules(), asList(tag1)), is(true));
+        assertThat(detector.hasChangedSince(".", asList("console-app", "core-utils"), asList(tag3)), is(false));
+    }
+
+    @Test
+    public void givesTheSameAnswersAsTheTreeWalkingDetector() throws IOException, GitAPIException {
+        TestProject project = TestProject.independentVersionsProject();
+
+        AnnotatedTag tag1 = saveFileInModule(project, "console-app", "1.2", 3);
+        AnnotatedTag tag2 = saveFileInModule(project, "core-utils", "2", 0);
+        AnnotatedTag tag3 = saveFileInModule(project, "console-app", "1.2", 4);
+        project.commitRandomFile("console-app");
+        AnnotatedTag tag4 = saveFileInModule(project, ".", "1.0", 1);
+
+        DiffDetector treeWalker = new TreeWalkingDiffDetector(project.local.getRepository());
+        List<List<AnnotatedTag>> tagCombinations = asList(asList(tag1), asList(tag2), asList(tag3), asList(tag4), asList(tag1, tag3), asList(tag2, tag4));
+        for (String modulePath : asList("console-app", "core-utils", ".")) {
+            for (List<AnnotatedTag> tags : tagCombinations) {
+                BatchDiffDetector batchDetector = new BatchDiffDetector(project.local.getRepository(), new NotRegistered());
+                batchDetector.register(modulePath, noChildModules(), tags);
+                assertThat(modulePath + " since " + tags, batchDetector.hasChangedSince(modulePath, noChildModules(), tags),
+                    is(treeWalker.hasChangedSince(modulePath, noChildModules(), tags)));
+            }
+        }
+    }
+
+    @Test
+    public void canIgnoreModuleFolders() throws IOException, GitAPIException {
+        TestProject project = TestProject.independentVersionsProject();
+
+        saveFileInModule(project, "console-app", "1.2", 3);
+        AnnotatedTag tag2 = saveFileInModule(project, "core-utils", "2", 0);
+        project.commitRandomFile("console-app");
+
+        BatchDiffDetector detector = new BatchDiffDetector(project.local.getRepository(), new NotRegistered());
+        detector.register(".", asList("console-app", "core-utils"), asList(tag2));
+        detector.register("console-app", noChildModules(), asList(tag2));
+        assertThat(detector.hasChangedSince(".", asList("console-app", "core-utils"), asList(tag2)), is(false));
+        assertThat(detector.hasChangedSince("console-app", noChildModules(), asList(tag2)), is(true));
+    }
+
+    @Test
+    public void usesTheFallbackForModulesThatWereNotRegistered() throws IOException {
+        BatchDiffDetector detector = new BatchDiffDetector(null, new NotRegistered());
+        assertThat(detector.hasChangedSince("console-app", noChildModules(), new ArrayList<AnnotatedTag>()), is(true));
+    }
+
+    private static class NotRegistered implements DiffDetector {
+        @Override
+        public boolean hasChangedSince(String modulePath, List<String> childModules, Collection<AnnotatedTag> tags) {
+            return true;
+        }
+    }
+
+    private static List<String> noChildModules() {
+        return new ArrayList<String>();
+    }
+}
@@ -0,0 +1,117 @@
+package com.github.danielflower.mavenplugins.release;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.junit.Test;
+import scaffolding.TestProject;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static com.github.danielflower.mavenplugins.release.AnnotatedTagFinderTest.saveFileInModule;
+import static java.util.Arrays.asList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class ChangeDetectionCacheTest {
+
+    @Test
+    public void verdictsAreSavedToTheGitDirectoryAndCanBeReadAgain() throws Exception {
+        Repository repo = TestProject.singleModuleProject().local.getRepository();
+        ChangeDetectionCache cache = ChangeDetectionCache.load(repo, null, 10);
+        cache.put("key-one", true);
+        cache.put("key-two", false);
+        cache.save();
+        assertThat(new File(repo.getDirectory(), "releaser/" + ChangeDetectionCache.FILE_NAME).isFile(), is(true));
+
+        ChangeDetectionCache reloaded = ChangeDetectionCache.load(repo, null, 10);
+        assertThat(reloaded.get("key-one"), is(true));
+        assertThat(reloaded.get("key-two"), is(false));
+        assertThat(reloaded.get("key-three"), is(nullValue()));
+    }
+
+    @Test
+    public void theLeastRecentlyUsedVerdictsAreDroppedWhenTheCacheIsFull() throws Exception {
+        Repository repo = TestProject.singleModuleProject().local.getRepository();
+        ChangeDetectionCache cache = ChangeDetectionCache.load(repo, null, 2);
+        cache.put("key-one", true);
+        cache.put("key-two", true);
+        cache.get("key-one");
+        cache.put("key-three", true);
+        cache.save();
+
+        ChangeDetectionCache reloaded = ChangeDetectionCache.load(repo, null, 2);
+        assertThat(reloaded.size(), is(2));
+        assertThat(reloaded.get("key-two"), is(nullValue()));
+        assertThat(reloaded.get("key-one"), is(true));
+        assertThat(reloaded.get("key-three"), is(true));
+    }
+
+    @Test
+    public void theVerdictsAreDiscardedIfTheShallowCommitsChange() throws Exception {
+        TestProject project = TestProject.singleModuleProject();
+        Repository repo = project.local.getRepository();
+        File directory = new File(project.localDir, "target/cache");
+        ChangeDetectionCache cache = ChangeDetectionCache.load(repo, directory, 10);
+        cache.put("key-one", true);
+        cache.save();
+
+        Files.write(new File(repo.getDirectory(), "shallow").toPath(), (repo.resolve("HEAD").name() + "\n").getBytes("UTF-8"));
+        assertThat(ChangeDetectionCache.load(repo, directory, 10).size(), is(0));
+    }
+
+    @Test
+    public void theCachingDetectorOnlyAsksTheOtherDetectorOnceForEachCommit() throws Exception {
+        TestProject project = TestProject.independentVersionsProject();
+        AnnotatedTag tag = saveFileInModule(project, "console-app", "1.2", 3);
+        Repository repo = project.local.getRepository();
+        CountingDetector counter = new CountingDetector(new TreeWalkingDiffDetector(repo));
+
+        for (int i = 0; i < 2; i++) {
+            ChangeDetectionCache cache = ChangeDetectionCache.load(repo, null, 10);
+            DiffDetector detector = new CachingDiffDetector(repo, counter, cache);
+            assertThat(detector.hasChangedSince("console-app", noChildModules(), asList(tag)), is(false));
+            cache.save();
+        }
+        assertThat(counter.calls, is(1));
+
+        project.commitRandomFile("console-app");
+        DiffDetector detector = new CachingDiffDetector(repo, counter, ChangeDetectionCache.load(repo, null, 10));
+        assertThat(detector.hasChangedSince("console-app", noChildModules(), asList(tag)), is(true));
+        assertThat(counter.calls, is(2));
+    }
+
+    @Test
+    public void keysDoNotDependOnTheOrderOfTheTagsOrChildModules() {
+        ObjectId head = ObjectId.fromString("0123456789012345678901234567890123456789");
+        ObjectId tag1 = ObjectId.fromString("1111111111111111111111111111111111111111");
+        ObjectId tag2 = ObjectId.fromString("2222222222222222222222222222222222222222");
+        String key = ChangeDetectionCache.keyFor("detector", head, asList(tag1, tag2), ".", asList("a", "b"));
+        assertThat(ChangeDetectionCache.keyFor("detector", head, asList(tag2, tag1), ".", asList("b", "a")), equalTo(key));
+        assertThat(ChangeDetectionCache.keyFor("detector", head, asList(tag1), ".", asList("a", "b")), not(equalTo(key)));
+        assertThat(ChangeDetectionCache.keyFor("detector", head, asList(tag1, tag2), "a", asList("a", "b")), not(equalTo(key)));
+    }
+
+    private static class CountingDetector implements DiffDetector {
+        private final DiffDetector detector;
+        int calls = 0;
+
+        CountingDetector(DiffDetector detector) {
+            this.detector = detector;
+        }
+
+        @Override
+        public boolean hasChangedSince(String modulePath, List<String> childModules, Collection<AnnotatedTag> tags) throws IOException {
+            calls++;
+            return detector.hasChangedSince(modulePath, childModules, tags);
+        }
+    }
+
+    private static List<String> noChildModules() {
+        return new ArrayList<String>();
+    }
+}
@@ -4,6 +4,7 @@ import org.eclipse.jgit.api.errors.GitAPIException;
 import org.junit.Test;
 import scaffolding.TestProject;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 
@@ -67,6 +68,23 @@ public class DiffDetectorTest {
         assertThat(detector.hasChangedSince("console-app", asList("console-app"), asList(tag3)), is(false));
     }
 
+    @Test
+    public void aModuleWhoseFilesAreTheSameAsTheTaggedVersionIsNotChanged() throws IOException, GitAPIException {
+        TestProject project = TestProject.independentVersionsProject();
+
+        AnnotatedTag tag = saveFileInModule(project, "console-app", "1.2", 3);
+        File added = new File(project.localDir, "console-app/temporary.txt");
+        added.createNewFile();
+        project.local.add().addFilepattern("console-app/temporary.txt").call();
+        project.local.commit().setMessage("Adding a file").call();
+        project.local.rm().addFilepattern("console-app/temporary.txt").call();
+        project.local.commit().setMessage("Removing the file").call();
+        project.commitRandomFile("core-utils");
+
+        DiffDetector detector = new TreeWalkingDiffDetector(project.local.getRepository());
+        assertThat(detector.hasChangedSince("console-app", noChildModules(), asList(tag)), is(false));
+        assertThat(detector.hasChangedSince("core-utils", noChildModules(), asList(tag)), is(true));
+    }
 
     private static java.util.List<String> noChildModules() {
         return new ArrayList<String>();
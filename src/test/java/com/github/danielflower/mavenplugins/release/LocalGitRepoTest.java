@@ -1,24 +1,54 @@
 package com.github.danielflower.mavenplugins.release;
 
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.plugin.logging.SystemStreamLog;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.api.errors.RefAlreadyExistsException;
+import org.eclipse.jgit.internal.storage.dfs.DfsRepositoryDescription;
+import org.eclipse.jgit.internal.storage.dfs.InMemoryRepository;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.lib.StoredConfig;
+import org.eclipse.jgit.transport.ReceivePack;
+import org.eclipse.jgit.transport.TestProtocol;
+import org.eclipse.jgit.transport.Transport;
+import org.eclipse.jgit.transport.UploadPack;
+import org.eclipse.jgit.transport.resolver.ReceivePackFactory;
+import org.eclipse.jgit.transport.resolver.UploadPackFactory;
+import org.junit.After;
+import org.junit.Assert;
 import org.junit.Test;
 import scaffolding.TestProject;
 
+import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.hasItems;
 import static scaffolding.TestProject.dirToGitScmReference;
 import static com.github.danielflower.mavenplugins.release.GitHelper.scmUrlToRemote;
 
 public class LocalGitRepoTest {
 
     TestProject project = TestProject.singleModuleProject();
+    private final List<TestProtocol<Object>> protocols = new ArrayList<TestProtocol<Object>>();
+
+    @After
+    public void unregisterProtocols() {
+        for (TestProtocol<Object> protocol : protocols) {
+            Transport.unregister(protocol);
+        }
+    }
 
     @Test
     public void canDetectLocalTags() throws GitAPIException {
@@ -29,6 +59,24 @@ public class LocalGitRepoTest {
         assertThat(repo.hasLocalTag("some-tagyo"), is(false));
     }
 
+    @Test
+    public void canDetectManyLocalTagsAtOnce() throws GitAPIException {
+        LocalGitRepo repo = new LocalGitRepo(project.local, null);
+        tag(project.local, "tag-one");
+        tag(project.local, "tag-three");
+        assertThat(repo.localTagsFrom(tags("tag-three", "tag-two", "tag-one", "tag-on")), equalTo(asList("tag-three", "tag-one")));
+        assertThat(repo.getLocalTags(Collections.<String>emptyList()).isEmpty(), is(true));
+    }
+
+    @Test
+    public void knowsAboutTagsItCreatesAfterTheTagsHaveBeenRead() throws GitAPIException {
+        LocalGitRepo repo = new LocalGitRepo(project.local, null);
+        assertThat(repo.hasLocalTag("some-tag-1.0.0"), is(false));
+        repo.tagRepo(AnnotatedTag.create("some-tag-1.0.0", "1.0", 0, true));
+        assertThat(repo.hasLocalTag("some-tag-1.0.0"), is(true));
+        assertThat(repo.localTags().tagsForVersion("some-tag", "1.0").size(), is(1));
+    }
+
     @Test
     public void canDetectRemoteTags() throws Exception {
         LocalGitRepo repo = new LocalGitRepo(project.local, null);
@@ -37,6 +85,70 @@ public class LocalGitRepoTest {
         assertThat(repo.remoteTagsFrom(tags("blah", "some-taggart")), equalTo(emptyList()));
     }
 
+    @Test
+    public void canDetectRemoteTagsFromTheMirror() throws Exception {
+        LocalGitRepo repo = new LocalGitRepo(project.local, null);
+        repo.useRemoteTagMirror(0);
+        tag(project.origin, "some-tag");
+        assertThat(repo.remoteTagsFrom(tags("blah", "some-tag")), equalTo(asList("some-tag")));
+        assertThat(project.local.getRepository().getRefDatabase().exactRef(LocalGitRepo.REMOTE_TAG_MIRROR_PREFIX + "origin/some-tag"), is(notNullValue()));
+        assertThat(repo.hasLocalTag("some-tag"), is(false));
+    }
+
+    @Test
+    public void theMirrorIsOnlyFetchedWhenItIsOlderThanTheMaximumAge() throws Exception {
+        tag(project.origin, "first-tag");
+        LocalGitRepo repo = new LocalGitRepo(project.local, null);
+        repo.useRemoteTagMirror(60 * 60 * 1000);
+        assertThat(repo.remoteTagsFrom(tags("first-tag")), equalTo(asList("first-tag")));
+
+        tag(project.origin, "second-tag");
+        project.origin.tagDelete().setTags("first-tag").call();
+        LocalGitRepo withinMaxAge = new LocalGitRepo(project.local, null);
+        withinMaxAge.useRemoteTagMirror(60 * 60 * 1000);
+        assertThat(withinMaxAge.remoteTagsFrom(tags("first-tag", "second-tag")), equalTo(asList("first-tag")));
+
+        LocalGitRepo refetched = new LocalGitRepo(project.local, null);
+        refetched.useRemoteTagMirror(0);
+        assertThat(refetched.remoteTagsFrom(tags("first-tag", "second-tag")), equalTo(asList("second-tag")));
+    }
+
+    @Test
+    public void aMaximumAgeOfZeroAlwaysFetchesTheMirror() throws Exception {
+        LocalGitRepo repo = new LocalGitRepo(project.local, null);
+        repo.useRemoteTagMirror(0);
+        assertThat(repo.remoteTagsFrom(tags("some-tag")), equalTo(emptyList()));
+        // as if the last fetch was in the same millisecond, or the clock has gone backwards
+        File lastFetched = new File(project.local.getRepository().getDirectory(), "releaser/remote-tags-origin.fetched");
+        assertThat(lastFetched.setLastModified(System.currentTimeMillis() + 60 * 60 * 1000), is(true));
+
+        tag(project.origin, "some-tag");
+        LocalGitRepo refetched = new LocalGitRepo(project.local, null);
+        refetched.useRemoteTagMirror(0);
+        assertThat(refetched.remoteTagsFrom(tags("some-tag")), equalTo(asList("some-tag")));
+    }
+
+    @Test
+    public void offlineTheRemoteTagsAreReadFromTheLastSnapshot() throws Exception {
+        LocalGitRepo offlineWithoutSnapshot = new LocalGitRepo(project.local, null);
+        offlineWithoutSnapshot.useOfflineSnapshot(new SystemStreamLog(), 0);
+        tag(project.origin, "first-tag");
+        assertThat(offlineWithoutSnapshot.allRemoteTags().isEmpty(), is(true));
+
+        LocalGitRepo online = new LocalGitRepo(project.local, null);
+        online.saveRemoteTagSnapshots(new SystemStreamLog());
+        Ref onlineTag = online.allRemoteTags().iterator().next();
+
+        tag(project.origin, "second-tag");
+        LocalGitRepo offline = new LocalGitRepo(project.local, null);
+        offline.useOfflineSnapshot(new SystemStreamLog(), 24 * 60 * 60 * 1000L);
+        assertThat(offline.remoteTagsFrom(tags("first-tag", "second-tag")), equalTo(asList("first-tag")));
+        Ref offlineTag = offline.allRemoteTags().iterator().next();
+        assertThat(offlineTag.getName(), equalTo(onlineTag.getName()));
+        assertThat(offlineTag.getObjectId(), equalTo(onlineTag.getObjectId()));
+        assertThat(offlineTag.getPeeledObjectId(), equalTo(onlineTag.getPeeledObjectId()));
+    }
+
     @Test
     public void usesThePassedInScmUrlToFindRemote() throws Exception {
         LocalGitRepo repo = new LocalGitRepo(project.local, scmUrlToRemote(dirToGitScmReference(project.originDir)));
@@ -64,6 +176,105 @@ public class LocalGitRepoTest {
         }
     }
 
+    @Test
+    public void canCreateAndPushManyTagsAtOnce() throws Exception {
+        String remote = remoteSupportingAtomicPushes();
+        LocalGitRepo repo = new LocalGitRepo(project.local, remote);
+        repo.tagRepoAndPushAtomically(tags("tag-one", "tag-two", "tag-three"));
+
+        LocalGitRepo freshRepo = new LocalGitRepo(project.local, remote);
+        assertThat(freshRepo.hasLocalTag("tag-two"), is(true));
+        assertThat(freshRepo.remoteTagsFrom(tags("tag-one", "tag-two", "tag-three", "tag-four")), containsInAnyOrder("tag-one", "tag-two", "tag-three"));
+    }
+
+    @Test
+    public void createsNoneOfTheTagsIfOneAlreadyExists() throws Exception {
+        tag(project.local, "tag-two");
+        String remote = remoteSupportingAtomicPushes();
+        LocalGitRepo repo = new LocalGitRepo(project.local, remote);
+        try {
+            repo.tagRepoAndPushAtomically(tags("tag-one", "tag-two", "tag-three"));
+            Assert.fail("Should have thrown");
+        } catch (RefAlreadyExistsException e) {
+            assertThat(e.getMessage(), containsString("refs/tags/tag-two"));
+        }
+        LocalGitRepo freshRepo = new LocalGitRepo(project.local, remote);
+        assertThat(freshRepo.hasLocalTag("tag-one"), is(false));
+        assertThat(freshRepo.hasLocalTag("tag-three"), is(false));
+        assertThat(freshRepo.remoteTagsFrom(tags("tag-one", "tag-two", "tag-three")), equalTo(emptyList()));
+    }
+
+    @Test
+    public void createsNoneOfTheTagsIfTheRemoteDoesNotSupportAtomicPushes() throws Exception {
+        LocalGitRepo repo = new LocalGitRepo(project.local, null);
+        try {
+            repo.tagRepoAndPushAtomically(tags("tag-one", "tag-two"));
+            Assert.fail("Should have thrown");
+        } catch (ValidationException e) {
+            assertThat(e.getMessage(), equalTo("The remote repository does not support atomic pushes"));
+        }
+        LocalGitRepo freshRepo = new LocalGitRepo(project.local, null);
+        assertThat(freshRepo.hasLocalTag("tag-one"), is(false));
+        assertThat(freshRepo.remoteTagsFrom(tags("tag-one", "tag-two")), equalTo(emptyList()));
+    }
+
+    @Test
+    public void reportsEveryRepositoryWithUncommittedChangesAtOnce() throws Exception {
+        TestProject clean = TestProject.singleModuleProject();
+        TestProject dirty = TestProject.singleModuleProject();
+        TestProject alsoDirty = TestProject.singleModuleProject();
+        new File(dirty.localDir, "dirty.txt").createNewFile();
+        new File(alsoDirty.localDir, "also-dirty.txt").createNewFile();
+
+        List<File> dirs = asList(clean.localDir, dirty.localDir, alsoDirty.localDir);
+        try {
+            LocalGitRepo.openCleanRepos(2, dirs, Arrays.<String>asList(null, null, null), true);
+            Assert.fail("Should have thrown");
+        } catch (ValidationException e) {
+            assertThat(e.getMessage(), equalTo("2 of the 3 repositories cannot be released"));
+            assertThat(e.getMessages(), hasItems("   * dirty.txt", "   * also-dirty.txt"));
+        }
+
+        List<LocalGitRepo> repos = LocalGitRepo.openCleanRepos(2, asList(clean.localDir, project.localDir), Arrays.<String>asList(null, null), true);
+        assertThat(repos.get(0).git.getRepository().getWorkTree(), equalTo(clean.localDir.getCanonicalFile()));
+    }
+
+    @Test
+    public void theTrackedFilesOnlyCheckIgnoresUntrackedFilesButFindsChangedTrackedFiles() throws Exception {
+        LocalGitRepo repo = new LocalGitRepo(project.local, null);
+        File untrackedDir = new File(project.localDir, "node_modules/some-package");
+        untrackedDir.mkdirs();
+        new File(untrackedDir, "index.js").createNewFile();
+        repo.errorIfNotClean(false);
+        assertThat(uncleanMessages(repo, true), hasItems("Untracked:", " * node_modules/some-package/index.js"));
+
+        // written within the same second as the commit and with the same size, so only the content differs
+        File tracked = new File(project.localDir, "tracked.txt");
+        FileUtils.writeStringToFile(tracked, "first", "UTF-8");
+        project.local.add().addFilepattern("tracked.txt").call();
+        project.local.commit().setMessage("Adding a tracked file").call();
+        FileUtils.writeStringToFile(tracked, "again", "UTF-8");
+        assertThat(uncleanMessages(repo, false), hasItems("Uncommitted:", " * tracked.txt"));
+
+        project.local.add().addFilepattern("tracked.txt").call();
+        assertThat(uncleanMessages(repo, false), hasItems(" * tracked.txt"));
+
+        project.local.commit().setMessage("Changing the tracked file").call();
+        repo.errorIfNotClean(false);
+        assertThat(tracked.delete(), is(true));
+        assertThat(uncleanMessages(repo, false), hasItems(" * tracked.txt"));
+    }
+
+    private static List<String> uncleanMessages(LocalGitRepo repo, boolean checkUntrackedFiles) {
+        try {
+            repo.errorIfNotClean(checkUntrackedFiles);
+            Assert.fail("Should have thrown");
+            return null;
+        } catch (ValidationException e) {
+            return e.getMessages();
+        }
+    }
+
     private static List<AnnotatedTag> tags(String... tagNames) {
         List<AnnotatedTag> tags = new ArrayList<AnnotatedTag>();
         for (String tagName : tagNames) {
@@ -71,6 +282,27 @@ public class LocalGitRepoTest {
         }
         return tags;
     }
+    /**
+     * An empty in-memory remote. JGit only advertises atomic pushes for repositories that can update refs atomically,
+     * which repositories on disk cannot.
+     */
+    private String remoteSupportingAtomicPushes() {
+        TestProtocol<Object> protocol = new TestProtocol<Object>(new UploadPackFactory<Object>() {
+            @Override
+            public UploadPack create(Object req, Repository db) {
+                return new UploadPack(db);
+            }
+        }, new ReceivePackFactory<Object>() {
+            @Override
+            public ReceivePack create(Object req, Repository db) {
+                return new ReceivePack(db);
+            }
+        });
+        Transport.register(protocol);
+        protocols.add(protocol);
+        return protocol.register(new Object(), new InMemoryRepository(new DfsRepositoryDescription("remote"))).toString();
+    }
+
     private static List<String> emptyList() {
         return new ArrayList<String>();
     }
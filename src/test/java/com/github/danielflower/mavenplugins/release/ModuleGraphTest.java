@@ -0,0 +1,123 @@
+package com.github.danielflower.mavenplugins.release;
+
+import org.apache.maven.model.Dependency;
+import org.apache.maven.project.MavenProject;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class ModuleGraphTest {
+
+    @Test
+    public void knowsTheDependenciesAndParentOfEachProjectInBuildOrder() {
+        MavenProject parent = project("my.group", "parent");
+        MavenProject core = project("my.group", "core");
+        core.setParent(parent);
+        MavenProject utils = project("my.group", "utils");
+        utils.setParent(parent);
+        MavenProject app = project("my.group", "app");
+        app.setParent(parent);
+        dependOn(app, "my.group", "utils");
+        dependOn(app, "other.group", "core");
+        dependOn(app, "my.group", "core");
+        dependOn(app, "junit", "junit");
+
+        ModuleGraph graph = ModuleGraph.fromProjects(asList(parent, core, utils, app));
+        assertThat(graph.upstreamOf(0).length, is(0));
+        assertThat(asList(box(graph.upstreamOf(1))), contains(0));
+        assertThat(asList(box(graph.upstreamOf(3))), contains(0, 1, 2));
+    }
+
+    @Test
+    public void ignoresProjectsThatAreBuiltLater() {
+        MavenProject core = project("my.group", "core");
+        dependOn(core, "my.group", "app");
+        MavenProject app = project("my.group", "app");
+
+        ModuleGraph graph = ModuleGraph.fromProjects(asList(core, app));
+        assertThat(graph.upstreamOf(0).length, is(0));
+    }
+
+    @Test
+    public void canFindProjectsByGroupAndArtifactId() {
+        ModuleGraph graph = ModuleGraph.fromProjects(asList(project("my.group", "core"), project("my.group", "app")));
+        assertThat(graph.indexOf("my.group", "app"), is(1));
+        assertThat(graph.indexOf("other.group", "app"), is(nullValue()));
+    }
+
+    @Test
+    public void theWidthIsTheLargestNumberOfSelectedProjectsThatDoNotDependOnEachOther() {
+        MavenProject parent = project("my.group", "parent");
+        MavenProject core = project("my.group", "core");
+        core.setParent(parent);
+        MavenProject utils = project("my.group", "utils");
+        utils.setParent(parent);
+        MavenProject web = project("my.group", "web");
+        dependOn(web, "my.group", "core");
+        MavenProject cli = project("my.group", "cli");
+        dependOn(cli, "my.group", "core");
+        MavenProject app = project("my.group", "app");
+        dependOn(app, "my.group", "web");
+        dependOn(app, "my.group", "utils");
+
+        ModuleGraph graph = ModuleGraph.fromProjects(asList(parent, core, utils, web, cli, app));
+        assertThat(graph.widthOf(selected(0, 1, 2, 3, 4, 5)), is(3));
+        assertThat(graph.widthOf(selected(2, 3, 4)), is(3));
+        assertThat(graph.widthOf(selected(3, 5)), is(1));
+        assertThat(graph.widthOf(selected(1, 5)), is(1));
+        assertThat(graph.widthOf(selected(4, 5)), is(2));
+        assertThat(graph.widthOf(selected()), is(0));
+    }
+
+    @Test
+    public void theWidthOfAChainOfDependenciesIsOne() {
+        MavenProject previous = project("my.group", "module-0");
+        List<MavenProject> projects = new ArrayList<MavenProject>();
+        projects.add(previous);
+        for (int i = 1; i < 2000; i++) {
+            MavenProject project = project("my.group", "module-" + i);
+            dependOn(project, "my.group", previous.getArtifactId());
+            projects.add(project);
+            previous = project;
+        }
+        BitSet all = new BitSet();
+        all.set(0, projects.size());
+        assertThat(ModuleGraph.fromProjects(projects).widthOf(all), is(1));
+    }
+
+    private static BitSet selected(int... indexes) {
+        BitSet selected = new BitSet();
+        for (int index : indexes) {
+            selected.set(index);
+        }
+        return selected;
+    }
+
+    private static MavenProject project(String groupId, String artifactId) {
+        MavenProject project = new MavenProject();
+        project.setGroupId(groupId);
+        project.setArtifactId(artifactId);
+        return project;
+    }
+
+    private static void dependOn(MavenProject project, String groupId, String artifactId) {
+        Dependency dependency = new Dependency();
+        dependency.setGroupId(groupId);
+        dependency.setArtifactId(artifactId);
+        project.getModel().addDependency(dependency);
+    }
+
+    private static Integer[] box(int[] values) {
+        Integer[] boxed = new Integer[values.length];
+        for (int i = 0; i < values.length; i++) {
+            boxed[i] = values[i];
+        }
+        return boxed;
+    }
+}
@@ -0,0 +1,62 @@
+package com.github.danielflower.mavenplugins.release;
+
+import org.apache.maven.model.Model;
+import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.StringReader;
+import java.nio.file.Files;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class PomUpdaterTest {
+
+    private static final byte[] BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+    private static final String POM = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+        "<project xmlns=\"http://maven.apache.org/POM/4.0.0\">\n" +
+        "    <modelVersion>4.0.0</modelVersion>\n" +
+        "    <groupId>my.group</groupId>\n" +
+        "    <artifactId>app</artifactId>\n" +
+        "    <version>1.0-SNAPSHOT</version>\n" +
+        "</project>\n";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void aByteOrderMarkIsKeptWhenTheVersionsArePatched() throws Exception {
+        File pom = folder.newFile("pom.xml");
+        ByteArrayOutputStream original = new ByteArrayOutputStream();
+        original.write(BOM);
+        original.write(POM.getBytes("UTF-8"));
+        Files.write(pom.toPath(), original.toByteArray());
+
+        Model model = new MavenXpp3Reader().read(new StringReader(POM));
+        model.setVersion("1.0.3");
+
+        assertThat(PomUpdater.writeVersions(pom, model), is(true));
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        expected.write(BOM);
+        expected.write(POM.replace("1.0-SNAPSHOT", "1.0.3").getBytes("UTF-8"));
+        assertThat(Files.readAllBytes(pom.toPath()), equalTo(expected.toByteArray()));
+    }
+
+    @Test
+    public void noByteOrderMarkIsAddedToAPomWithoutOne() throws Exception {
+        File pom = folder.newFile("pom.xml");
+        Files.write(pom.toPath(), POM.getBytes("UTF-8"));
+        Model model = new MavenXpp3Reader().read(new StringReader(POM));
+        model.setVersion("1.0.3");
+
+        assertThat(PomUpdater.writeVersions(pom, model), is(true));
+
+        assertThat(Files.readAllBytes(pom.toPath()), equalTo(POM.replace("1.0-SNAPSHOT", "1.0.3").getBytes("UTF-8")));
+    }
+}
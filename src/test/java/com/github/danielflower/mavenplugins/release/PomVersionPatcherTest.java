@@ -0,0 +1,96 @@
+package com.github.danielflower.mavenplugins.release;
+
+import org.apache.maven.model.Model;
+import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
+import org.junit.Test;
+
+import java.io.StringReader;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class PomVersionPatcherTest {
+
+    private static final String POM = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+        "<!-- a comment with <version>1.0-SNAPSHOT</version> in it -->\n" +
+        "<project xmlns=\"http://maven.apache.org/POM/4.0.0\">\n" +
+        "    <modelVersion>4.0.0</modelVersion>\n" +
+        "    <parent>\n" +
+        "        <groupId>my.group</groupId>\n" +
+        "        <artifactId>parent</artifactId>\n" +
+        "        <version>1.0-SNAPSHOT</version>\n" +
+        "    </parent>\n" +
+        "    <artifactId>app</artifactId>\n" +
+        "    <version>\n" +
+        "        1.0-SNAPSHOT\n" +
+        "    </version>\n" +
+        "    <dependencies>\n" +
+        "        <dependency>\n" +
+        "            <groupId>my.group</groupId>\n" +
+        "            <artifactId>core</artifactId>\n" +
+        "            <version>2.0-SNAPSHOT</version> <!-- keep me -->\n" +
+        "        </dependency>\n" +
+        "        <dependency>\n" +
+        "            <groupId>junit</groupId>\n" +
+        "            <artifactId>junit</artifactId>\n" +
+        "            <version>4.12</version>\n" +
+        "        </dependency>\n" +
+        "    </dependencies>\n" +
+        "    <build>\n" +
+        "        <plugins>\n" +
+        "            <plugin>\n" +
+        "                <artifactId>maven-jar-plugin</artifactId>\n" +
+        "                <version>1.0-SNAPSHOT</version>\n" +
+        "            </plugin>\n" +
+        "        </plugins>\n" +
+        "    </build>\n" +
+        "</project>\n";
+
+    @Test
+    public void onlyTheVersionsThatHaveChangedAreRewritten() throws Exception {
+        Model model = read(POM);
+        model.setVersion("1.0.3");
+        model.getParent().setVersion("1.0.2");
+        model.getDependencies().get(0).setVersion("2.0.1");
+
+        String expected = POM
+            .replace("<version>1.0-SNAPSHOT</version>\n    </parent>", "<version>1.0.2</version>\n    </parent>")
+            .replace("        1.0-SNAPSHOT\n", "        1.0.3\n")
+            .replace("<version>2.0-SNAPSHOT</version>", "<version>2.0.1</version>");
+        assertThat(PomVersionPatcher.patch(POM, model), equalTo(expected));
+    }
+
+    @Test
+    public void aPomIsUnchangedIfTheVersionsAreTheSame() throws Exception {
+        assertThat(PomVersionPatcher.patch(POM, read(POM)), equalTo(POM));
+    }
+
+    @Test
+    public void aVersionIsAddedAfterTheArtifactIdIfTheProjectInheritsItsVersion() throws Exception {
+        String pom = "<project>\r\n" +
+            "  <parent><artifactId>parent</artifactId><version>1.0-SNAPSHOT</version></parent>\r\n" +
+            "  <artifactId>app</artifactId>\r\n" +
+            "</project>\r\n";
+        Model model = read(pom);
+        model.setVersion("1.0.3");
+        model.getParent().setVersion("1.0.2");
+        assertThat(PomVersionPatcher.patch(pom, model), equalTo("<project>\r\n" +
+            "  <parent><artifactId>parent</artifactId><version>1.0.2</version></parent>\r\n" +
+            "  <artifactId>app</artifactId>\r\n" +
+            "  <version>1.0.3</version>\r\n" +
+            "</project>\r\n"));
+    }
+
+    @Test
+    public void returnsNullIfTheVersionsCannotBePatched() throws Exception {
+        String pom = "<project><artifactId>app</artifactId><version><![CDATA[1.0-SNAPSHOT]]></version></project>";
+        Model model = read(pom);
+        model.setVersion("1.0.3");
+        assertThat(PomVersionPatcher.patch(pom, model), is(nullValue()));
+        assertThat(PomVersionPatcher.patch("<project><artifactId>app</artifactId>", model), is(nullValue()));
+    }
+
+    private static Model read(String pom) throws Exception {
+        return new MavenXpp3Reader().read(new StringReader(pom));
+    }
+}
@@ -1,10 +1,13 @@
 package com.github.danielflower.mavenplugins.release;
 
 import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.SystemStreamLog;
 import org.apache.maven.project.MavenProject;
 import org.junit.Assert;
 import org.junit.Test;
+import scaffolding.GeneratedProject;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.List;
@@ -12,6 +15,7 @@ import java.util.List;
 import static java.util.Arrays.asList;
 import static org.hamcrest.CoreMatchers.*;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static scaffolding.GeneratedProject.aGeneratedProject;
 import static scaffolding.ReleasableModuleBuilder.aModule;
 
 public class ReactorTest {
@@ -55,6 +59,116 @@ public class ReactorTest {
         assertThat(Reactor.hasChangedSinceLastRelease(asList(onePointTen, onePointNine), new NeverChanged(), new MavenProject(), "whatever"), is(onePointTen));
     }
 
+    @Test
+    public void canDetectChangesOnManyThreadsAndGivesTheResultsInBuildOrder() throws MojoExecutionException {
+        AnnotatedTag parentTag = AnnotatedTag.create("parent-1.0.1", "1.0", 1, true);
+        AnnotatedTag coreTag = AnnotatedTag.create("core-1.0.2", "1.0", 2, true);
+        AnnotatedTag appTag = AnnotatedTag.create("app-1.0.3", "1.0", 3, true);
+        MavenProject parent = project("parent", "");
+        List<MavenProject> projects = asList(parent, project("core", "core"), project("app", "app"), project("forced", "forced"));
+        List<List<AnnotatedTag>> previousTags = asList(asList(parentTag), asList(coreTag), asList(appTag), asList(appTag));
+
+        List<AnnotatedTag> results = Reactor.detectChangesInParallel(4, parent, projects, previousTags, asList("forced"), new OnlyChanged("core"), new ReleaseReport());
+        assertThat(results, equalTo(asList(parentTag, null, appTag, null)));
+    }
+
+    @Test
+    public void errorsFromDetectingChangesOnManyThreadsNameTheModule() throws Exception {
+        AnnotatedTag coreTag = AnnotatedTag.create("core-1.0.2", "1.0", 2, true);
+        MavenProject parent = project("parent", "");
+        List<MavenProject> projects = asList(parent, project("core", "core"));
+        List<List<AnnotatedTag>> previousTags = asList(asList(coreTag), asList(coreTag));
+
+        try {
+            Reactor.detectChangesInParallel(2, parent, projects, previousTags, null, new FailsFor("core"), new ReleaseReport());
+            Assert.fail("Should have thrown");
+        } catch (MojoExecutionException e) {
+            assertThat(e.getMessage(), equalTo("Error while detecting whether or not core has changed since the last release"));
+        }
+    }
+
+    @Test
+    public void onlyTheChangedModulesOfAGeneratedProjectAreReleased() throws Exception {
+        GeneratedProject generated = aGeneratedProject()
+            .withModules(12)
+            .withDependenciesPerModule(2)
+            .withCommitsPerModule(3)
+            .withReleasesPerModule(2)
+            .withChangesToEvery(3)
+            .build();
+        List<MavenProject> projects = generated.readProjects();
+
+        Reactor reactor = Reactor.fromProjects(new SystemStreamLog(), new LocalGitRepo(generated.local, null), projects.get(0), projects,
+            null, null, NoChangesAction.FailBuild, new PlanningOptions());
+
+        int released = 0;
+        for (ReleasableModule module : reactor.getModulesInBuildOrder()) {
+            if (module.willBeReleased()) {
+                released++;
+                assertThat(module.getArtifactId(), module.getBuildNumber(), is(2L));
+            }
+        }
+        assertThat(released, is(4));
+    }
+
+    @Test
+    public void modulesOfAGeneratedProjectAreReleasedWhenADependencyChanged() throws Exception {
+        GeneratedProject generated = aGeneratedProject()
+            .withModules(12)
+            .withDependenciesPerModule(1)
+            .withReleasesPerModule(2)
+            .withChangesToEvery(4)
+            .withDependenciesOnChangedModules(true)
+            .build();
+        List<MavenProject> projects = generated.readProjects();
+
+        Reactor reactor = Reactor.fromProjects(new SystemStreamLog(), new LocalGitRepo(generated.local, null), projects.get(0), projects,
+            null, null, NoChangesAction.FailBuild, new PlanningOptions());
+
+        List<ReleasableModule> modules = reactor.getModulesInBuildOrder();
+        assertThat(modules.get(0).willBeReleased(), is(false));
+        for (ReleasableModule module : modules.subList(1, modules.size())) {
+            assertThat(module.getArtifactId(), module.willBeReleased(), is(true));
+            assertThat(module.getArtifactId(), module.getBuildNumber(), is(2L));
+        }
+    }
+
+    private static MavenProject project(String artifactId, String path) {
+        MavenProject project = new MavenProject();
+        project.setArtifactId(artifactId);
+        project.setFile(new File(new File("target/reactor-test", path), "pom.xml"));
+        return project;
+    }
+
+    private static class OnlyChanged implements DiffDetector {
+        private final String changedModulePath;
+
+        OnlyChanged(String changedModulePath) {
+            this.changedModulePath = changedModulePath;
+        }
+
+        @Override
+        public boolean hasChangedSince(String modulePath, List<String> childModules, Collection<AnnotatedTag> tags) throws IOException {
+            return modulePath.equals(changedModulePath);
+        }
+    }
+
+    private static class FailsFor implements DiffDetector {
+        private final String failingModulePath;
+
+        FailsFor(String failingModulePath) {
+            this.failingModulePath = failingModulePath;
+        }
+
+        @Override
+        public boolean hasChangedSince(String modulePath, List<String> childModules, Collection<AnnotatedTag> tags) throws IOException {
+            if (modulePath.equals(failingModulePath)) {
+                throw new IOException("Could not read " + modulePath);
+            }
+            return false;
+        }
+    }
+
     private static class NeverChanged implements DiffDetector {
         @Override
         public boolean hasChangedSince(String modulePath, List<String> childModules, Collection<AnnotatedTag> tags) throws IOException {
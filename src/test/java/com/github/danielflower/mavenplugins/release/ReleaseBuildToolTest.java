@@ -0,0 +1,49 @@
+package com.github.danielflower.mavenplugins.release;
+
+import org.codehaus.plexus.util.Os;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ReleaseBuildToolTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final String MVND = Os.isFamily(Os.FAMILY_WINDOWS) ? "mvnd.cmd" : "mvnd";
+
+    @Test
+    public void mvndIsFoundInMvndHomeBeforeThePath() throws IOException {
+        File home = folder.newFolder("mvnd-home");
+        File fromHome = executableIn(new File(home, "bin"));
+        File pathDir = folder.newFolder("path-dir");
+        executableIn(pathDir);
+
+        assertThat(ReleaseBuildTool.findMvnd(home.getPath(), pathDir.getPath()), equalTo(fromHome));
+    }
+
+    @Test
+    public void mvndIsFoundOnThePath() throws IOException {
+        File emptyDir = folder.newFolder("empty");
+        File pathDir = folder.newFolder("path-dir");
+        File fromPath = executableIn(pathDir);
+
+        assertThat(ReleaseBuildTool.findMvnd(null, emptyDir.getPath() + File.pathSeparator + pathDir.getPath()), equalTo(fromPath));
+        assertThat(ReleaseBuildTool.findMvnd(emptyDir.getPath(), emptyDir.getPath()), is(nullValue()));
+    }
+
+    private static File executableIn(File dir) throws IOException {
+        dir.mkdirs();
+        File executable = new File(dir, MVND);
+        executable.createNewFile();
+        return executable;
+    }
+}
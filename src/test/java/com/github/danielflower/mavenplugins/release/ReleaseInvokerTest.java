@@ -1,5 +1,6 @@
 package com.github.danielflower.mavenplugins.release;
 
+import static com.github.danielflower.mavenplugins.release.ReleaseInvoker.BUILDER;
 import static com.github.danielflower.mavenplugins.release.ReleaseInvoker.DEPLOY;
 import static com.github.danielflower.mavenplugins.release.ReleaseInvoker.SKIP_TESTS;
 import static java.util.Arrays.asList;
@@ -105,6 +106,22 @@ public class ReleaseInvokerTest {
 		verify(log).info("About to run mvn [deploy] with no profiles activated");
 	}
 
+	@Test
+	public void runMavenBuild_BuildOnlyReleasedModules() throws Exception {
+		releaseInvoker.setBuildOnlyReleasedModules(true);
+		releaseInvoker.runMavenBuild(reactor);
+		verify(request).setAlsoMake(false);
+	}
+
+	@Test
+	public void runMavenBuild_WithThreadsAndBuilder() throws Exception {
+		releaseInvoker.setThreads("1C");
+		releaseInvoker.setBuilder("multithreaded");
+		releaseInvoker.runMavenBuild(reactor);
+		verify(request).setThreads("1C");
+		verify(request).setGoals(asList(DEPLOY, BUILDER, "multithreaded"));
+	}
+
 	@Test
 	public void runMavenBuild_WithUserSettings() throws Exception {
 		releaseInvoker.setUserSettings(USER_SETTINGS);
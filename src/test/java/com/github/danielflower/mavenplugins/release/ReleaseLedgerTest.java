@@ -0,0 +1,115 @@
+package com.github.danielflower.mavenplugins.release;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.junit.Test;
+import scaffolding.TestProject;
+
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ReleaseLedgerTest {
+
+    private final TestProject project = TestProject.singleModuleProject();
+    private final Repository repository = project.local.getRepository();
+
+    @Test
+    public void anEmptyLedgerIsReadWhenTheRefDoesNotExist() throws Exception {
+        ReleaseLedger ledger = ReleaseLedger.read(repository);
+        assertThat(ledger.entry("my-module"), is(nullValue()));
+        assertThat(ledger.latestRelease("my-module", "1.0"), is(nullValue()));
+    }
+
+    @Test
+    public void theLatestReleaseOfEachModuleIsRecorded() throws Exception {
+        ObjectId head = repository.resolve(Constants.HEAD);
+        AnnotatedTag.create("module-a-1.0.1", "1.0", 1, true).saveAtHEAD(project.local);
+        AnnotatedTag.create("module-a-1.0.2", "1.0", 2, true).saveAtHEAD(project.local);
+        AnnotatedTag.create("module-b-2.0.0", "2.0", 0, true).saveAtHEAD(project.local);
+
+        ReleaseLedger.record(repository, asList(
+            new ReleaseLedger.Entry("module-a", "1.0", 1, "module-a-1.0.1", head),
+            new ReleaseLedger.Entry("module-b", "2.0", 0, "module-b-2.0.0", head)));
+        ReleaseLedger.record(repository, asList(
+            new ReleaseLedger.Entry("module-a", "1.0", 2, "module-a-1.0.2", head)));
+
+        ReleaseLedger ledger = ReleaseLedger.read(repository);
+        List<AnnotatedTag> moduleA = ledger.latestRelease("module-a", "1.0");
+        assertThat(moduleA.size(), is(1));
+        assertThat(moduleA.get(0).name(), equalTo("module-a-1.0.2"));
+        assertThat(moduleA.get(0).buildNumber(), is(2L));
+        assertThat(moduleA.get(0).ref().getName(), equalTo("refs/tags/module-a-1.0.2"));
+
+        ReleaseLedger.Entry moduleB = ledger.entry("module-b");
+        assertThat(moduleB.tagName, equalTo("module-b-2.0.0"));
+        assertThat(moduleB.commit, equalTo(head));
+    }
+
+    @Test
+    public void entriesForOtherVersionsOrMissingTagsAreIgnored() throws Exception {
+        ObjectId head = repository.resolve(Constants.HEAD);
+        AnnotatedTag.create("module-a-1.0.1", "1.0", 1, true).saveAtHEAD(project.local);
+        ReleaseLedger.record(repository, asList(
+            new ReleaseLedger.Entry("module-a", "1.0", 1, "module-a-1.0.1", head),
+            new ReleaseLedger.Entry("module-b", "1.0", 1, "module-b-1.0.1", head)));
+
+        ReleaseLedger ledger = ReleaseLedger.read(repository);
+        assertThat(ledger.latestRelease("module-a", "1.1"), is(nullValue()));
+        assertThat(ledger.latestRelease("module-b", "1.0"), is(nullValue()));
+    }
+
+    @Test
+    public void anEntryIsIgnoredIfTheTagForTheNextBuildNumberExists() throws Exception {
+        ObjectId head = repository.resolve(Constants.HEAD);
+        AnnotatedTag.create("module-a-1.0.1", "1.0", 1, true).saveAtHEAD(project.local);
+        ReleaseLedger.record(repository, asList(new ReleaseLedger.Entry("module-a", "1.0", 1, "module-a-1.0.1", head)));
+        AnnotatedTag.create("module-a-1.0.2", "1.0", 2, true).saveAtHEAD(project.local);
+
+        assertThat(ReleaseLedger.read(repository).latestRelease("module-a", "1.0"), is(nullValue()));
+    }
+
+    @Test
+    public void releasesAreRecordedOnTopOfTheRemoteLedgerInAFreshClone() throws Exception {
+        Repository origin = project.origin.getRepository();
+        ObjectId head = origin.resolve(Constants.HEAD);
+        ReleaseLedger.record(origin, asList(new ReleaseLedger.Entry("module-a", "1.0", 1, "module-a-1.0.1", head)));
+        ObjectId remoteLedger = origin.resolve(ReleaseLedger.REF);
+        assertThat(repository.resolve(ReleaseLedger.REF), is(nullValue()));
+
+        LocalGitRepo repo = new LocalGitRepo(project.local, null);
+        repo.fetchLedger();
+        assertThat(repository.resolve(ReleaseLedger.REF), equalTo(remoteLedger));
+
+        ReleaseLedger.record(repository, asList(new ReleaseLedger.Entry("module-b", "2.0", 0, "module-b-2.0.0", head)));
+        repo.pushLedger();
+
+        RevWalk walk = new RevWalk(origin);
+        try {
+            RevCommit pushed = walk.parseCommit(origin.resolve(ReleaseLedger.REF));
+            assertThat(pushed.getParent(0).getId(), equalTo(remoteLedger));
+        } finally {
+            walk.dispose();
+        }
+        ReleaseLedger ledger = ReleaseLedger.read(origin);
+        assertThat(ledger.entry("module-a").tagName, equalTo("module-a-1.0.1"));
+        assertThat(ledger.entry("module-b").tagName, equalTo("module-b-2.0.0"));
+    }
+
+    @Test
+    public void fetchingTheLedgerDoesNothingIfTheRemoteHasNone() throws Exception {
+        ObjectId head = repository.resolve(Constants.HEAD);
+        ReleaseLedger.record(repository, asList(new ReleaseLedger.Entry("module-a", "1.0", 1, "module-a-1.0.1", head)));
+        ObjectId localLedger = repository.resolve(ReleaseLedger.REF);
+
+        new LocalGitRepo(project.local, null).fetchLedger();
+        assertThat(repository.resolve(ReleaseLedger.REF), equalTo(localLedger));
+    }
+}
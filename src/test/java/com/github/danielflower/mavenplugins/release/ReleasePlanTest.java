@@ -0,0 +1,142 @@
+package com.github.danielflower.mavenplugins.release;
+
+import org.apache.maven.project.MavenProject;
+import org.eclipse.jgit.lib.Repository;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import scaffolding.TestProject;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Collections;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+
+public class ReleasePlanTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final TestProject testProject = TestProject.singleModuleProject();
+    private final Repository repository = testProject.local.getRepository();
+    private final MavenProject project = project();
+
+    @Test
+    public void aSavedPlanCreatesTheSameReactor() throws Exception {
+        ReleasableModule module = new ReleasableModule(project, new VersionName("1.0-SNAPSHOT", "1.0", 12), null, ".", null);
+        File file = new File(folder.getRoot(), "plan/releaser-plan.json");
+        ReleasePlan.fromReactor(repository, new Reactor(Collections.singletonList(module))).writeTo(file);
+
+        List<ReleasableModule> modules = ReleasePlan.readFrom(file).toReactor(repository, asList(project), null).getModulesInBuildOrder();
+        assertThat(modules.size(), is(1));
+        ReleasableModule planned = modules.get(0);
+        assertThat(planned.getProject(), is(project));
+        assertThat(planned.getDevelopmentVersion(), equalTo("1.0-SNAPSHOT"));
+        assertThat(planned.getVersion(), equalTo("1.0"));
+        assertThat(planned.getBuildNumber(), is(12L));
+        assertThat(planned.getTagName(), equalTo("single-module-1.0.12"));
+        assertThat(planned.getRelativePathToModule(), equalTo("."));
+        assertThat(planned.willBeReleased(), is(true));
+    }
+
+    @Test
+    public void unreleasedModulesKeepTheirEquivalentVersion() throws Exception {
+        ReleasableModule module = new ReleasableModule(project, new VersionName("1.0-SNAPSHOT", "1.0", 12), "1.0.11", ".", null);
+        File file = folder.newFile();
+        ReleasePlan.fromReactor(repository, new Reactor(Collections.singletonList(module))).writeTo(file);
+
+        ReleasableModule planned = ReleasePlan.readFrom(file).toReactor(repository, asList(project), null).getModulesInBuildOrder().get(0);
+        assertThat(planned.willBeReleased(), is(false));
+        assertThat(planned.getVersionToDependOn(), equalTo("1.0.11"));
+    }
+
+    @Test
+    public void aPlanCannotBeUsedAfterThePomChanges() throws Exception {
+        ReleasableModule module = new ReleasableModule(project, new VersionName("1.0-SNAPSHOT", "1.0", 12), null, ".", null);
+        File file = folder.newFile();
+        ReleasePlan.fromReactor(repository, new Reactor(Collections.singletonList(module))).writeTo(file);
+
+        FileOutputStream pom = new FileOutputStream(project.getFile(), true);
+        pom.write("\n".getBytes("UTF-8"));
+        pom.close();
+
+        assertOutOfDate(file, asList(project), "The pom of single-module has changed since the plan was made");
+    }
+
+    @Test
+    public void aPlanCannotBeUsedAfterHEADMoves() throws Exception {
+        ReleasableModule module = new ReleasableModule(project, new VersionName("1.0-SNAPSHOT", "1.0", 12), null, ".", null);
+        File file = folder.newFile();
+        ReleasePlan.fromReactor(repository, new Reactor(Collections.singletonList(module))).writeTo(file);
+
+        testProject.commitRandomFile(".");
+
+        assertOutOfDate(file, asList(project), "but HEAD is now");
+    }
+
+    @Test
+    public void aPlanCannotBeUsedForADifferentReactor() throws Exception {
+        ReleasableModule module = new ReleasableModule(project, new VersionName("1.0-SNAPSHOT", "1.0", 12), null, ".", null);
+        File file = folder.newFile();
+        ReleasePlan.fromReactor(repository, new Reactor(Collections.singletonList(module))).writeTo(file);
+
+        assertOutOfDate(file, asList(project, project()), "The plan has 1 modules but the reactor has 2");
+    }
+
+    @Test
+    public void aPomThatCannotBeReadIsReportedWithThePlanFile() throws Exception {
+        ReleasableModule module = new ReleasableModule(project, new VersionName("1.0-SNAPSHOT", "1.0", 12), null, ".", null);
+        File file = folder.newFile();
+        ReleasePlan.fromReactor(repository, new Reactor(Collections.singletonList(module))).writeTo(file);
+
+        assertThat(project.getFile().delete(), is(true));
+
+        try {
+            ReleasePlan.readFrom(file).toReactor(repository, asList(project), null);
+            fail("Should have thrown");
+        } catch (ValidationException e) {
+            assertThat(e.getMessage(), equalTo("Could not check the release plan in " + file + " against the repository"));
+        }
+    }
+
+    @Test
+    public void aFileThatIsNotAPlanIsReported() throws Exception {
+        File file = folder.newFile();
+        FileOutputStream out = new FileOutputStream(file);
+        out.write("{\"head\":\"abc\"}".getBytes("UTF-8"));
+        out.close();
+        try {
+            ReleasePlan.readFrom(file);
+            fail("Should have thrown");
+        } catch (ValidationException e) {
+            assertThat(e.getMessage(), containsString("is not in the expected format"));
+        }
+    }
+
+    private void assertOutOfDate(File file, List<MavenProject> projects, String expectedMessage) {
+        try {
+            ReleasePlan.readFrom(file).toReactor(repository, projects, null);
+            fail("Should have thrown");
+        } catch (ValidationException e) {
+            assertThat(e.getMessage(), equalTo("The release plan is out of date"));
+            String problems = String.valueOf(e.getMessages());
+            assertThat(problems, containsString(expectedMessage));
+            assertThat(problems, containsString("Run the next goal again to make a new plan."));
+        }
+    }
+
+    private MavenProject project() {
+        MavenProject project = new MavenProject();
+        project.setGroupId("com.github.danielflower.mavenplugins.testprojects");
+        project.setArtifactId("single-module");
+        project.setFile(new File(testProject.localDir, "pom.xml"));
+        return project;
+    }
+}
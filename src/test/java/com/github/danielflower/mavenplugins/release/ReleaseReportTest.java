@@ -0,0 +1,84 @@
+package com.github.danielflower.mavenplugins.release;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.apache.maven.project.MavenProject;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.junit.Test;
+import scaffolding.GeneratedProject;
+
+import java.io.File;
+import java.io.FileReader;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static scaffolding.GeneratedProject.aGeneratedProject;
+
+public class ReleaseReportTest {
+
+    @Test
+    public void phasesAreWrittenInOrderWithTheCountsAndModuleSteps() throws Exception {
+        ReleaseReport report = new ReleaseReport();
+        report.phaseFinished("first", System.nanoTime());
+        report.phaseStepFinished("second", "inner", System.nanoTime());
+        report.phaseFinished("second", System.nanoTime());
+        report.moduleStepFinished("core", ReleaseReport.TAG_LOOKUP, System.nanoTime());
+        report.moduleStepFinished("core", ReleaseReport.TAG_LOOKUP, System.nanoTime());
+        report.increment(ReleaseReport.DIFF_WALKS, 2);
+        report.increment(ReleaseReport.DIFF_WALKS, 3);
+        report.setOutcome("released");
+
+        File file = new File("target/release-report-test/" + System.nanoTime() + "/" + ReleaseReport.FILE_NAME);
+        report.writeTo(file);
+        JSONObject json = (JSONObject) new JSONParser().parse(new FileReader(file));
+
+        assertThat((String) json.get("outcome"), equalTo("released"));
+        JSONArray phases = (JSONArray) json.get("phases");
+        assertThat(phases.size(), is(2));
+        assertThat((String) ((JSONObject) phases.get(0)).get("name"), equalTo("first"));
+        assertThat((String) ((JSONObject) phases.get(1)).get("name"), equalTo("second"));
+        assertThat(((JSONObject) phases.get(0)).containsKey("steps"), is(false));
+        JSONObject secondSteps = (JSONObject) ((JSONObject) phases.get(1)).get("steps");
+        assertThat(secondSteps.containsKey("innerMillis"), is(true));
+        JSONObject core = (JSONObject) ((JSONObject) json.get("modules")).get("core");
+        assertThat(core.size(), is(1));
+        assertThat(core.containsKey("tagLookupMillis"), is(true));
+        assertThat((Long) ((JSONObject) json.get("counts")).get(ReleaseReport.DIFF_WALKS), is(5L));
+    }
+
+    @Test
+    public void planningRecordsTheTagsAndCommitsLookedAtAndThePlan() throws Exception {
+        GeneratedProject generated = aGeneratedProject().withModules(6).withReleasesPerModule(3).build();
+        List<MavenProject> projects = generated.readProjects();
+        PlanningOptions options = new PlanningOptions();
+
+        long startedAt = System.nanoTime();
+        Reactor reactor = Reactor.fromProjects(new SystemStreamLog(), new LocalGitRepo(generated.local, null), projects.get(0), projects,
+            null, null, NoChangesAction.FailBuild, options);
+        ReleaseReport report = options.getReport();
+        report.phaseFinished(ReleaseReport.PLANNING, startedAt);
+        report.setPlan(reactor.getModulesInBuildOrder());
+
+        assertThat(report.count(ReleaseReport.LOCAL_TAGS_SCANNED), is(21L));
+        assertThat(report.count(ReleaseReport.REMOTE_TAGS_SCANNED), is(21L));
+        assertThat(report.count(ReleaseReport.DIFF_WALKS), greaterThan(0L));
+        assertThat(report.count(ReleaseReport.COMMITS_WALKED), greaterThan(0L));
+
+        JSONObject json = report.toJson();
+        JSONArray phases = (JSONArray) json.get("phases");
+        assertThat(phases.size(), is(1));
+        JSONObject planningSteps = (JSONObject) ((JSONObject) phases.get(0)).get("steps");
+        assertThat(planningSteps.containsKey(ReleaseReport.REMOTE_TAG_LISTING + "Millis"), is(true));
+        JSONObject module = (JSONObject) ((JSONObject) json.get("modules")).get(GeneratedProject.moduleName(1));
+        assertThat(module.containsKey("tagLookupMillis"), is(true));
+        assertThat(module.containsKey("diffWalkMillis"), is(true));
+        JSONArray plan = (JSONArray) json.get("plan");
+        assertThat(plan.size(), is(7));
+        JSONObject changedModule = (JSONObject) plan.get(1);
+        assertThat((String) changedModule.get("artifactId"), equalTo(GeneratedProject.moduleName(0)));
+        assertThat((Boolean) changedModule.get("release"), is(true));
+        assertThat((String) changedModule.get("tag"), equalTo(GeneratedProject.moduleName(0) + "-1.0.3"));
+    }
+}
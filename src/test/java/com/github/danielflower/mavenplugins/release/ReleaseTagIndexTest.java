@@ -0,0 +1,74 @@
+package com.github.danielflower.mavenplugins.release;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectIdRef;
+import org.eclipse.jgit.lib.Ref;
+import org.junit.Test;
+import scaffolding.TestProject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.github.danielflower.mavenplugins.release.AnnotatedTagFinderTest.saveFileInModule;
+import static java.util.Arrays.asList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class ReleaseTagIndexTest {
+
+    @Test
+    public void groupsTagsByArtifactIdAndVersion() {
+        Ref tag1 = tag("my-artifact-1.2.1");
+        Ref tag2 = tag("my-artifact-1.2.2");
+        Ref tag3 = tag("my-artifact-1.20.2");
+        Ref tag4 = tag("not-my-artifact-1.2.2");
+        ReleaseTagIndex index = ReleaseTagIndex.fromRefs(asList(tag1, tag2, tag3, tag4));
+
+        assertThat(index.tagsForVersion("my-artifact", "1.2"), containsInAnyOrder(tag1, tag2));
+        assertThat(index.tagsForVersion("my-artifact", "1.20"), contains(tag3));
+        assertThat(index.tagsForVersion("my-artifact", "1.3"), hasSize(0));
+        assertThat(index.tagsForVersion("artifact", "1.2"), hasSize(0));
+    }
+
+    @Test
+    public void ignoresTagsWithoutABuildNumberWhenGroupingButCanStillFindThem() {
+        ReleaseTagIndex index = ReleaseTagIndex.fromRefs(asList(tag("some-tag"), tag("my-artifact-1.2.beta")));
+        assertThat(index.tagsForVersion("my-artifact", "1.2"), hasSize(0));
+        assertThat(index.hasTag("some-tag"), is(true));
+        assertThat(index.hasTag("some-ta"), is(false));
+        assertThat(index.hasTag("my-artifact-1.2.beta"), is(true));
+    }
+
+    @Test
+    public void knowsTheGreatestBuildNumberForEachVersion() {
+        ReleaseTagIndex index = ReleaseTagIndex.fromRefs(asList(tag("my-artifact-1.2.9"), tag("my-artifact-1.2.10"),
+            tag("my-artifact-1.2.2"), tag("my-artifact-1.3.20"), tag("my-artifact-1.2.beta")));
+        assertThat(index.maxBuildNumber("my-artifact", "1.2"), is(10L));
+        assertThat(index.maxBuildNumber("my-artifact", "1.3"), is(20L));
+        assertThat(index.maxBuildNumber("my-artifact", "1.4"), is(nullValue()));
+    }
+
+    @Test
+    public void knowsTheTagWithTheGreatestName() {
+        assertThat(ReleaseTagIndex.fromRefs(new ArrayList<Ref>()).lastTag(), is(nullValue()));
+        Ref last = tag("b-1.0.0");
+        assertThat(ReleaseTagIndex.fromRefs(asList(tag("a-1.0.0"), last, tag("a-1.0.1"))).lastTag(), is(last));
+    }
+
+    @Test
+    public void readsTheTagsFromTheRepository() throws Exception {
+        TestProject project = TestProject.independentVersionsProject();
+        AnnotatedTag tag1 = saveFileInModule(project, "console-app", "1.2", 3);
+        saveFileInModule(project, "core-utils", "2", 0);
+
+        ReleaseTagIndex index = ReleaseTagIndex.fromRepository(project.local.getRepository());
+        assertThat(index.size(), is(2));
+        List<Ref> refs = index.tagsForVersion("console-app", "1.2");
+        assertThat(refs, hasSize(1));
+        assertThat(refs.get(0).getName(), equalTo("refs/tags/" + tag1.name()));
+    }
+
+    private static Ref tag(String name) {
+        return new ObjectIdRef.PeeledNonTag(Ref.Storage.PACKED, "refs/tags/" + name, ObjectId.zeroId());
+    }
+}
@@ -2,17 +2,26 @@ package com.github.danielflower.mavenplugins.release;
 
 import com.jcraft.jsch.HostKey;
 import com.jcraft.jsch.JSch;
+import com.jcraft.jsch.Session;
 import org.apache.maven.plugin.logging.Log;
+import org.eclipse.jgit.transport.RemoteSession;
+import org.eclipse.jgit.transport.URIish;
 import org.eclipse.jgit.util.FS;
 import org.junit.Test;
 
 import java.io.File;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
 
 import static java.lang.String.format;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 /**
  * @author Roland Hauser sourcepond@gmail.com
@@ -37,4 +46,88 @@ public class SshAgentSessionFactoryTest {
 		final HostKey[] keys = jsch.getHostKeyRepository().getHostKey("github.com", "ssh-rsa");
 		assertEquals(1, keys.length);
 	}
+
+	@Test
+	public void releasingASessionThatIsNotPooledDisconnectsIt() {
+		final SshAgentSessionFactory factory = new SshAgentSessionFactory(log, null, null, null);
+		final RemoteSession session = mock(RemoteSession.class);
+		factory.releaseSession(session);
+		verify(session).disconnect();
+
+		factory.closeSessions();
+		final RemoteSession another = mock(RemoteSession.class);
+		factory.releaseSession(another);
+		verify(another).disconnect();
+	}
+
+	@Test
+	public void sessionsArePooledByUserHostAndPort() throws Exception {
+		assertEquals("git@example.com:2222", SshAgentSessionFactory.poolKey(new URIish("ssh://git@example.com:2222/repo.git")));
+		assertEquals("git@example.com:-1", SshAgentSessionFactory.poolKey(new URIish("git@example.com:repo.git")));
+	}
+
+	@Test
+	public void releasedSessionsAreReusedForTheSameUserHostAndPort() throws Exception {
+		final SshAgentSessionFactory factory = new SshAgentSessionFactory(log, null, null, null);
+		final URIish uri = new URIish("ssh://git@example.com:2222/repo.git");
+		final SshAgentSessionFactory.PooledSession pooled = pooledSession(uri);
+		factory.releaseSession(pooled);
+
+		assertSame(pooled, factory.getSession(uri, null, fs, 0));
+		verify(pooled.delegate, never()).disconnect();
+	}
+
+	@Test
+	public void onlyAFewIdleSessionsAreKeptForEachHost() throws Exception {
+		final SshAgentSessionFactory factory = new SshAgentSessionFactory(log, null, null, null);
+		final URIish uri = new URIish("ssh://git@example.com/repo.git");
+		final List<SshAgentSessionFactory.PooledSession> sessions = new ArrayList<SshAgentSessionFactory.PooledSession>();
+		for (int i = 0; i <= SshAgentSessionFactory.MAX_IDLE_SESSIONS_PER_HOST; i++) {
+			final SshAgentSessionFactory.PooledSession pooled = pooledSession(uri);
+			sessions.add(pooled);
+			factory.releaseSession(pooled);
+		}
+
+		for (int i = 0; i < SshAgentSessionFactory.MAX_IDLE_SESSIONS_PER_HOST; i++) {
+			verify(sessions.get(i).delegate, never()).disconnect();
+		}
+		verify(sessions.get(SshAgentSessionFactory.MAX_IDLE_SESSIONS_PER_HOST).delegate).disconnect();
+	}
+
+	@Test
+	public void idleSessionsThatHaveDisconnectedAreDropped() throws Exception {
+		final SshAgentSessionFactory factory = new SshAgentSessionFactory(log, null, null, null);
+		final URIish uri = new URIish("ssh://git@example.com/repo.git");
+		final SshAgentSessionFactory.PooledSession alive = pooledSession(uri);
+		final SshAgentSessionFactory.PooledSession dropped = pooledSession(uri);
+		factory.releaseSession(alive);
+		factory.releaseSession(dropped);
+		when(dropped.session.isConnected()).thenReturn(false);
+
+		assertSame(alive, factory.getSession(uri, null, fs, 0));
+		verify(dropped.delegate).disconnect();
+	}
+
+	@Test
+	public void closingDisconnectsIdleSessionsAndStopsPooling() throws Exception {
+		final SshAgentSessionFactory factory = new SshAgentSessionFactory(log, null, null, null);
+		final SshAgentSessionFactory.PooledSession first = pooledSession(new URIish("ssh://git@example.com/repo.git"));
+		final SshAgentSessionFactory.PooledSession second = pooledSession(new URIish("ssh://git@example.org/repo.git"));
+		factory.releaseSession(first);
+		factory.releaseSession(second);
+
+		factory.closeSessions();
+		verify(first.delegate).disconnect();
+		verify(second.delegate).disconnect();
+
+		final SshAgentSessionFactory.PooledSession later = pooledSession(new URIish("ssh://git@example.com/repo.git"));
+		factory.releaseSession(later);
+		verify(later.delegate).disconnect();
+	}
+
+	private static SshAgentSessionFactory.PooledSession pooledSession(final URIish uri) {
+		final Session session = mock(Session.class);
+		when(session.isConnected()).thenReturn(true);
+		return new SshAgentSessionFactory.PooledSession(SshAgentSessionFactory.poolKey(uri), mock(RemoteSession.class), session);
+	}
 }
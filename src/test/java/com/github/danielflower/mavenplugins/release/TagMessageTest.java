@@ -0,0 +1,42 @@
+package com.github.danielflower.mavenplugins.release;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class TagMessageTest {
+
+    @Test
+    public void readsTheVersionAndBuildNumber() {
+        TagMessage message = TagMessage.parse("{\"version\":\"1.0\",\"buildNumber\":\"3\"}");
+        assertThat(message.version, equalTo("1.0"));
+        assertThat(message.buildNumber, equalTo("3"));
+    }
+
+    @Test
+    public void skipsOtherFieldsAndAllowsWhitespaceAndNumbers() {
+        TagMessage message = TagMessage.parse(" {\n \"other\" : {\"a\": [1, \"}\", {\"b\": null}]},\n \"buildNumber\": 12, \"version\" : \"2.\\u0030\\\"\" }\n");
+        assertThat(message.version, equalTo("2.0\""));
+        assertThat(message.buildNumber, equalTo("12"));
+    }
+
+    @Test
+    public void missingFieldsAndNullsAreNull() {
+        TagMessage message = TagMessage.parse("{\"buildNumber\":null}");
+        assertThat(message.version, is(nullValue()));
+        assertThat(message.buildNumber, is(nullValue()));
+        assertThat(TagMessage.parse("{}").version, is(nullValue()));
+    }
+
+    @Test
+    public void returnsNullIfTheMessageIsNotAJsonObject() {
+        assertThat(TagMessage.parse("This is not json"), is(nullValue()));
+        assertThat(TagMessage.parse(""), is(nullValue()));
+        assertThat(TagMessage.parse("[\"version\"]"), is(nullValue()));
+        assertThat(TagMessage.parse("{\"version\":\"1.0\""), is(nullValue()));
+        assertThat(TagMessage.parse("{\"version\":\"1.0\"} trailing"), is(nullValue()));
+    }
+}
@@ -0,0 +1,94 @@
+package com.github.danielflower.mavenplugins.release;
+
+import com.jcraft.jsch.agentproxy.USocketFactory;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.net.ProtocolFamily;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class UnixDomainSocketFactoryTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void canTalkToAUnixDomainSocket() throws Exception {
+        Assume.assumeTrue("Unix domain sockets need Java 16", UnixDomainSocketFactory.isAvailable());
+        File socketFile = new File(folder.getRoot(), "agent.sock");
+        final ServerSocketChannel server = openServer(socketFile);
+        Thread echo = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    SocketChannel client = server.accept();
+                    ByteBuffer buffer = ByteBuffer.allocate(5);
+                    while (buffer.hasRemaining() && client.read(buffer) >= 0) {
+                    }
+                    buffer.flip();
+                    client.write(buffer);
+                    client.close();
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        });
+        echo.start();
+        try {
+            USocketFactory.Socket socket = new UnixDomainSocketFactory().open(socketFile.getPath());
+            socket.write("hello".getBytes("UTF-8"), 0, 5);
+            byte[] received = new byte[7];
+            assertThat(socket.readFull(received, 2, 5), equalTo(5));
+            assertThat(new String(received, 2, 5, "UTF-8"), equalTo("hello"));
+            socket.close();
+            echo.join(10000);
+        } finally {
+            server.close();
+        }
+    }
+
+    @Test
+    public void aReadThatEndsBeforeTheBufferIsFullReturnsMinusOne() throws Exception {
+        Assume.assumeTrue("Unix domain sockets need Java 16", UnixDomainSocketFactory.isAvailable());
+        File socketFile = new File(folder.getRoot(), "agent.sock");
+        final ServerSocketChannel server = openServer(socketFile);
+        Thread shortReply = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    SocketChannel client = server.accept();
+                    client.write(ByteBuffer.wrap("hel".getBytes("UTF-8")));
+                    client.close();
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        });
+        shortReply.start();
+        try {
+            USocketFactory.Socket socket = new UnixDomainSocketFactory().open(socketFile.getPath());
+            assertThat(socket.readFull(new byte[5], 0, 5), equalTo(-1));
+            socket.close();
+            shortReply.join(10000);
+        } finally {
+            server.close();
+        }
+    }
+
+    private static ServerSocketChannel openServer(File socketFile) throws Exception {
+        ServerSocketChannel server = (ServerSocketChannel) ServerSocketChannel.class.getMethod("open", ProtocolFamily.class)
+            .invoke(null, Enum.valueOf(StandardProtocolFamily.class, "UNIX"));
+        server.bind((SocketAddress) Class.forName("java.net.UnixDomainSocketAddress").getMethod("of", String.class).invoke(null, socketFile.getPath()));
+        return server;
+    }
+}
@@ -0,0 +1,315 @@
+package scaffolding;
+
+import com.github.danielflower.mavenplugins.release.AnnotatedTag;
+import org.apache.maven.model.Build;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
+import org.apache.maven.project.MavenProject;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.internal.storage.file.FileRepository;
+import org.eclipse.jgit.internal.storage.file.GC;
+import org.eclipse.jgit.lib.BatchRefUpdate;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.NullProgressMonitor;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.TagBuilder;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.transport.ReceiveCommand;
+import org.json.simple.JSONObject;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A multi-module maven project with a git history that is generated rather than copied from the
+ * <code>test-projects</code> folder, so that tests and benchmarks can run against projects of any size.
+ * <p>
+ * The root pom is the parent of every module, and modules depend on earlier modules. The history has a round of
+ * changes for every commit per module, with one commit per module in each round. The latest release tags of the root
+ * and of every module point at the commit before the last round of changes, and older release tags point at the first
+ * commit. The last round only changes some of the modules, so the others have to be checked for changes but should not
+ * be released. By default, modules that are not changed only depend on other modules that are not changed, so only
+ * the changed modules are released. With {@link Builder#withDependenciesOnChangedModules(boolean)}, modules may also
+ * depend on changed modules, and so are released because a dependency changed.
+ * </p>
+ */
+public class GeneratedProject {
+
+    public static final String GROUP_ID = "com.github.danielflower.mavenplugins.generated";
+    public static final String VERSION = "1.0-SNAPSHOT";
+
+    public final File originDir;
+    public final Git origin;
+
+    public final File localDir;
+    public final Git local;
+
+    private final int moduleCount;
+
+    private GeneratedProject(File originDir, Git origin, File localDir, Git local, int moduleCount) {
+        this.originDir = originDir;
+        this.origin = origin;
+        this.localDir = localDir;
+        this.local = local;
+        this.moduleCount = moduleCount;
+    }
+
+    public static Builder aGeneratedProject() {
+        return new Builder();
+    }
+
+    public static String moduleName(int module) {
+        return "module-" + module;
+    }
+
+    /**
+     * Reads the poms of the local copy from disk into maven projects, with the root project first.
+     */
+    public List<MavenProject> readProjects() throws Exception {
+        MavenProject root = project(new File(localDir, "pom.xml"));
+        List<MavenProject> projects = new ArrayList<MavenProject>();
+        projects.add(root);
+        for (int i = 0; i < moduleCount; i++) {
+            MavenProject project = project(new File(localDir, moduleName(i) + "/pom.xml"));
+            project.setParent(root);
+            projects.add(project);
+        }
+        return projects;
+    }
+
+    private static MavenProject project(File pom) throws Exception {
+        Model model = readModel(pom);
+        model.setBuild(new Build()); // as maven does for the effective model
+        MavenProject project = new MavenProject(model);
+        project.setOriginalModel(readModel(pom));
+        project.setFile(pom);
+        return project;
+    }
+
+    private static Model readModel(File pom) throws Exception {
+        FileReader reader = new FileReader(pom);
+        try {
+            return new MavenXpp3Reader().read(reader);
+        } finally {
+            reader.close();
+        }
+    }
+
+    public static class Builder {
+        private int modules = 10;
+        private int dependenciesPerModule = 1;
+        private int commitsPerModule = 2;
+        private int releasesPerModule = 1;
+        private int changeEvery = 2;
+        private boolean dependenciesOnChangedModules = false;
+
+        public Builder withModules(int modules) {
+            this.modules = modules;
+            return this;
+        }
+
+        /**
+         * The number of earlier modules that each module depends on, where there are enough earlier modules.
+         */
+        public Builder withDependenciesPerModule(int dependenciesPerModule) {
+            this.dependenciesPerModule = dependenciesPerModule;
+            return this;
+        }
+
+        /**
+         * The depth of the history, as the number of commits that change each module. Must be at least 1.
+         */
+        public Builder withCommitsPerModule(int commitsPerModule) {
+            this.commitsPerModule = commitsPerModule;
+            return this;
+        }
+
+        /**
+         * The number of previous release tags for the root and each module, which may be 0.
+         */
+        public Builder withReleasesPerModule(int releasesPerModule) {
+            this.releasesPerModule = releasesPerModule;
+            return this;
+        }
+
+        /**
+         * Which modules are changed after their last release: with 2, modules 0, 2, 4 and so on are changed; with 1,
+         * every module is changed.
+         */
+        public Builder withChangesToEvery(int changeEvery) {
+            this.changeEvery = changeEvery;
+            return this;
+        }
+
+        /**
+         * If true, each module depends on the nearest earlier modules whether or not they are changed, so unchanged
+         * modules that depend on changed modules need releasing too. If false, modules only depend on earlier modules
+         * that are not changed.
+         */
+        public Builder withDependenciesOnChangedModules(boolean dependenciesOnChangedModules) {
+            this.dependenciesOnChangedModules = dependenciesOnChangedModules;
+            return this;
+        }
+
+        public GeneratedProject build() {
+            try {
+                File dir = new File("target/samples/generated/" + UUID.randomUUID());
+                File originDir = new File(dir, "origin");
+                Git origin = Git.init().setDirectory(originDir).call();
+                generateHistory(originDir, origin);
+
+                File localDir = new File(dir, "local");
+                Git local = Git.cloneRepository()
+                    .setBare(false)
+                    .setDirectory(localDir)
+                    .setURI(originDir.toURI().toString())
+                    .call();
+                return new GeneratedProject(originDir, origin, localDir, local, modules);
+            } catch (Exception e) {
+                throw new RuntimeException("Error while generating the test project", e);
+            }
+        }
+
+        private void generateHistory(File dir, Git git) throws Exception {
+            write(new File(dir, "pom.xml"), rootPom(dir));
+            for (int i = 0; i < modules; i++) {
+                write(new File(dir, moduleName(i) + "/pom.xml"), modulePom(i));
+            }
+            git.add().addFilepattern(".").call();
+            RevCommit firstCommit = git.commit().setMessage("Initial commit").call();
+
+            RevCommit releasedCommit = firstCommit;
+            for (int round = 1; round <= commitsPerModule; round++) {
+                boolean lastRound = round == commitsPerModule;
+                for (int i = 0; i < modules; i++) {
+                    if (lastRound && !isChanged(i)) {
+                        continue;
+                    }
+                    String path = moduleName(i) + "/change-" + round + ".txt";
+                    write(new File(dir, path), "Change " + round + " to " + moduleName(i));
+                    git.add().addFilepattern(path).call();
+                    RevCommit commit = git.commit().setMessage("Change " + round + " to " + moduleName(i)).call();
+                    if (round == commitsPerModule - 1) {
+                        releasedCommit = commit;
+                    }
+                }
+            }
+            tag(git, firstCommit, releasedCommit);
+        }
+
+        private boolean isChanged(int module) {
+            return module % changeEvery == 0;
+        }
+
+        private void tag(Git git, ObjectId firstCommit, ObjectId releasedCommit) throws IOException {
+            PersonIdent tagger = new PersonIdent(git.getRepository());
+            BatchRefUpdate batch = git.getRepository().getRefDatabase().newBatchUpdate();
+            ObjectInserter inserter = git.getRepository().newObjectInserter();
+            try {
+                for (int i = -1; i < modules; i++) {
+                    String artifactId = i < 0 ? "root" : moduleName(i);
+                    for (int buildNumber = 0; buildNumber < releasesPerModule; buildNumber++) {
+                        String tagName = artifactId + "-1.0." + buildNumber;
+                        JSONObject message = new JSONObject();
+                        message.put(AnnotatedTag.VERSION, "1.0");
+                        message.put(AnnotatedTag.BUILD_NUMBER, String.valueOf(buildNumber));
+
+                        TagBuilder tagBuilder = new TagBuilder();
+                        tagBuilder.setTag(tagName);
+                        tagBuilder.setObjectId(buildNumber == releasesPerModule - 1 ? releasedCommit : firstCommit, Constants.OBJ_COMMIT);
+                        tagBuilder.setTagger(tagger);
+                        tagBuilder.setMessage(message.toJSONString());
+                        ObjectId tagId = inserter.insert(tagBuilder);
+                        batch.addCommand(new ReceiveCommand(ObjectId.zeroId(), tagId, Constants.R_TAGS + tagName, ReceiveCommand.Type.CREATE));
+                    }
+                }
+                inserter.flush();
+            } finally {
+                inserter.close();
+            }
+            RevWalk walk = new RevWalk(git.getRepository());
+            try {
+                batch.execute(walk, NullProgressMonitor.INSTANCE);
+            } finally {
+                walk.dispose();
+            }
+            new GC((FileRepository) git.getRepository()).packRefs();
+        }
+
+        private String rootPom(File dir) {
+            StringBuilder moduleElements = new StringBuilder();
+            for (int i = 0; i < modules; i++) {
+                moduleElements.append("        <module>").append(moduleName(i)).append("</module>\n");
+            }
+            return "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                "<project xmlns=\"http://maven.apache.org/POM/4.0.0\">\n" +
+                "    <modelVersion>4.0.0</modelVersion>\n" +
+                "    <groupId>" + GROUP_ID + "</groupId>\n" +
+                "    <artifactId>root</artifactId>\n" +
+                "    <version>" + VERSION + "</version>\n" +
+                "    <packaging>pom</packaging>\n" +
+                "    <modules>\n" + moduleElements +
+                "    </modules>\n" +
+                "    <scm>\n" +
+                "        <connection>" + TestProject.dirToGitScmReference(dir) + "</connection>\n" +
+                "    </scm>\n" +
+                "    <build>\n" +
+                "        <plugins>\n" +
+                "            <plugin>\n" +
+                "                <groupId>com.github.danielflower.mavenplugins</groupId>\n" +
+                "                <artifactId>multi-module-maven-release-plugin</artifactId>\n" +
+                "                <version>" + TestProject.PLUGIN_VERSION_FOR_TESTS + "</version>\n" +
+                "                <configuration>\n" +
+                "                    <releaseGoals>\n" +
+                "                        <releaseGoal>install</releaseGoal>\n" +
+                "                    </releaseGoals>\n" +
+                "                </configuration>\n" +
+                "            </plugin>\n" +
+                "        </plugins>\n" +
+                "    </build>\n" +
+                "</project>\n";
+        }
+
+        private String modulePom(int module) {
+            StringBuilder dependencies = new StringBuilder();
+            int added = 0;
+            for (int other = module - 1; other >= 0 && added < dependenciesPerModule; other--) {
+                if (!dependenciesOnChangedModules && isChanged(other)) {
+                    continue;
+                }
+                dependencies.append("        <dependency>\n")
+                    .append("            <groupId>").append(GROUP_ID).append("</groupId>\n")
+                    .append("            <artifactId>").append(moduleName(other)).append("</artifactId>\n")
+                    .append("            <version>").append(VERSION).append("</version>\n")
+                    .append("        </dependency>\n");
+                added++;
+            }
+            return "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                "<project xmlns=\"http://maven.apache.org/POM/4.0.0\">\n" +
+                "    <modelVersion>4.0.0</modelVersion>\n" +
+                "    <parent>\n" +
+                "        <groupId>" + GROUP_ID + "</groupId>\n" +
+                "        <artifactId>root</artifactId>\n" +
+                "        <version>" + VERSION + "</version>\n" +
+                "    </parent>\n" +
+                "    <artifactId>" + moduleName(module) + "</artifactId>\n" +
+                "    <version>" + VERSION + "</version>\n" +
+                (added == 0 ? "" : "    <dependencies>\n" + dependencies + "    </dependencies>\n") +
+                "</project>\n";
+        }
+
+        private static void write(File file, String content) throws IOException {
+            file.getParentFile().mkdirs();
+            Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
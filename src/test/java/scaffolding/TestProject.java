@@ -19,7 +19,7 @@ import static scaffolding.Photocopier.copyTestProjectToTemporaryLocation;
 public class TestProject {
 
     private static final MvnRunner defaultRunner = new MvnRunner(null);
-    private static final String PLUGIN_VERSION_FOR_TESTS = "2.1-SNAPSHOT";
+    static final String PLUGIN_VERSION_FOR_TESTS = "2.2-SNAPSHOT";
     public final File originDir;
     public final Git origin;
 